@@ -1,6 +1,7 @@
 /**
  * This MapReduce program takes in a text file containing crime data for the city of Pittsburgh, PA and
  * outputs the total number of aggravated assault crimes that occurred within 350 meters of 3803 Forbes Avenue in Oakland.
+ * The center, radius and offense can be changed with the crime.query.* properties, see CrimeRadiusQuery.
  * This program defines two classes - AggravatedAssaultsMapper and AggravatedAssaultsReducer - which are responsible for
  * mapping and reducing the data, respectively.
  * The output is the total number of aggravated assault crimes within the given area
@@ -14,25 +15,18 @@ package edu.cmu.andrew.student032;
 import org.apache.hadoop.conf.Configured;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
-import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.Reducer;
-import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
-import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 
 import java.io.IOException;
 
 public class AggravatedAssaults extends Configured implements Tool {
-    private final static double X = 1354326.897;
-    private final static double Y = 411447.7828;
-    private final static double MAX_DISTANCE = 350 * 350;
 
     public static void main(String[] args) throws Exception {
         int exitCode = ToolRunner.run(new AggravatedAssaults(), args);
@@ -51,40 +45,33 @@ public class AggravatedAssaults extends Configured implements Tool {
         job.setMapperClass(AggravatedAssaultsMapper.class);
         job.setReducerClass(AggravatedAssaultsReducer.class);
 
-        job.setInputFormatClass(TextInputFormat.class);
         job.setOutputFormatClass(TextOutputFormat.class);
 
-        FileInputFormat.setInputPaths(job, new Path(args[0]));
+        CrimeRecordMapper.setInput(job, new Path(args[0]), CrimeColumn.X, CrimeColumn.Y, CrimeColumn.OFFENSE);
+        CrimeColumnarInputFormat.setRadiusQuery(job, CrimeRadiusQuery.fromConf(job.getConfiguration()));
         FileOutputFormat.setOutputPath(job, new Path(args[1]));
 
         return job.waitForCompletion(true) ? 0 : 1;
     }
 
     /**
-     * This mapper class reads in crime data and outputs a count of aggravated assault crimes that occurred within 350 meters of 3803 Forbes Avenue in Oakland.
-     * The Pythagorean theorem is used to calculate the distance between the crime location and the Forbes Avenue location.
+     * This mapper class reads in crime data and outputs a count of the crimes that match the radius query.
+     * The Pythagorean theorem is used to calculate the distance between the crime location and the center of the query.
      */
-    public static class AggravatedAssaultsMapper extends Mapper<LongWritable, Text, Text, IntWritable> {
+    public static class AggravatedAssaultsMapper extends CrimeRecordMapper<Text, IntWritable> {
         private final static IntWritable ONE = new IntWritable(1);
-        private final NullWritable nullKey = NullWritable.get();
+        private final Text assault = new Text("assault");
+        private CrimeRadiusQuery query;
 
         @Override
-        public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
-            String textLine = value.toString();
-            if (!textLine.startsWith("X")) {
-                String[] data = textLine.split("\t");
-                if (data.length >= 5) {
-                    String crimeType = data[4].toLowerCase();
-                    if (crimeType.contains("aggravated assault")) {
-                        double xCoord = Double.parseDouble(data[0]);
-                        double yCoord = Double.parseDouble(data[1]);
-                        double dist = Math.sqrt(Math.pow(xCoord - X, 2) + Math.pow(yCoord - Y, 2));
-                        dist = dist * 0.3048;
-                        if (dist < 350.0) {
-                            context.write(new Text("assault"), new IntWritable(1));
-                        }
-                    }
-                }
+        protected void setup(Context context) {
+            query = CrimeRadiusQuery.fromConf(context.getConfiguration());
+        }
+
+        @Override
+        protected void process(CrimeRecord record, Context context) throws IOException, InterruptedException {
+            if (query.matches(record)) {
+                context.write(assault, ONE);
             }
         }
     }
@@ -0,0 +1,115 @@
+/**
+ * This MapReduce program takes in a text file containing crime data for the city of Pittsburgh, PA and
+ * outputs the KML file of coordinates of crimes that occurred within 350 meters of 3803 Forbes Avenue in Oakland.
+ * This program defines two classes - AggravatedAssaultsKMLMapper and AggravatedAssaultsKMLReducer. The mapper sends
+ * the coordinates of the crimes within the given area, and the reducer passes them on to KmlOutputFormat, which
+ * streams them into the KML file as placemarks, so the document is never held in memory.
+ * The center, radius and offense can be changed with the crime.query.* properties, see CrimeRadiusQuery.
+ * kml.max.bytes and kml.kmz split the output into several KML or KMZ files, see KmlOutputFormat.
+ * Author: Ruta Deshpande
+ * Email: rutasurd@andrew.cmu.edu
+ * Andrew ID: rutasurd
+ */
+
+package edu.cmu.andrew.student032;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import java.io.IOException;
+
+public class AggravatedAssaultsKML extends Configured implements Tool {
+
+    /**
+     * Main Method
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        int exitCode = ToolRunner.run(new AggravatedAssaultsKML(), args);
+        System.exit(exitCode);
+    }
+
+    /**
+     * Run method for setting job attributes
+     * @param args
+     * @return
+     * @throws Exception
+     */
+    @Override
+    public int run(String[] args) throws Exception {
+        Job job = new Job(getConf());
+        job.setJarByClass(AggravatedAssaultsKML.class);
+        job.setJobName("Oakland Crime Stats");
+
+        job.setOutputKeyClass(NullWritable.class);
+        job.setOutputValueClass(CrimePoint.class);
+
+        job.setMapperClass(AggravatedAssaultsKMLMapper.class);
+        job.setReducerClass(AggravatedAssaultsKMLReducer.class);
+
+        job.setOutputFormatClass(KmlOutputFormat.class);
+
+        CrimeRecordMapper.setInput(job, new Path(args[0]),
+                CrimeColumn.X, CrimeColumn.Y, CrimeColumn.OFFENSE, CrimeColumn.LAT, CrimeColumn.LON);
+        CrimeRadiusQuery query = CrimeRadiusQuery.fromConf(job.getConfiguration());
+        CrimeColumnarInputFormat.setRadiusQuery(job, query);
+        job.getConfiguration().setIfUnset(KmlOutputFormat.NAME_KEY, "Aggravated Assault");
+        job.getConfiguration().setIfUnset(KmlOutputFormat.DESCRIPTION_KEY, query.describe());
+        FileOutputFormat.setOutputPath(job, new Path(args[1]));
+
+        return job.waitForCompletion(true) ? 0 : 1;
+    }
+
+    /**
+     * Mapper class for sending data of coordinates within 350m of given coordinates
+     */
+    public static class AggravatedAssaultsKMLMapper extends CrimeRecordMapper<NullWritable, CrimePoint> {
+        private final CrimePoint point = new CrimePoint();
+        private CrimeRadiusQuery query;
+
+        @Override
+        protected void setup(Context context) {
+            query = CrimeRadiusQuery.fromConf(context.getConfiguration());
+        }
+
+        /**
+         * process method sends the coordinates of the places where crimes have occured to the reducer
+         * @param record
+         * @param context
+         * @throws IOException
+         * @throws InterruptedException
+         */
+        @Override
+        protected void process(CrimeRecord record, Context context) throws IOException, InterruptedException {
+            if (query.matches(record)) {
+                point.set(record.getLon(), record.getLat());
+                context.write(NullWritable.get(), point);
+            }
+        }
+    }
+
+    /**
+     * This reducer class passes the points on to KmlOutputFormat, which streams them into the KML file.
+     */
+    public static class AggravatedAssaultsKMLReducer extends Reducer<NullWritable, CrimePoint, NullWritable, CrimePoint> {
+        /**
+         * Reducer method to write all points received from the mapper, KmlOutputFormat adds the other xml tags
+         * @param key
+         * @param values
+         * @param context
+         * @throws IOException
+         * @throws InterruptedException
+         */
+        @Override
+        public void reduce(NullWritable key, Iterable<CrimePoint> values, Context context) throws IOException, InterruptedException {
+            for (CrimePoint value : values) {
+                context.write(NullWritable.get(), value);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * The partial aggregate of a group of crimes: the number of crimes and the distinct values of
+ * each dimension counted with crime.aggregate.distinct. Partial aggregates of the same group are
+ * merged by the combiner and the reducer of CrimeAggregation.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class CrimeAggregate implements Writable {
+    private long count;
+    private final List<Set<String>> distinct = new ArrayList<>();
+
+    /**
+     * Sets the aggregate to a single crime.
+     * @param record the crime record
+     * @param distinctDimensions the dimensions whose distinct values are counted
+     * @param grid the grid of the ZONE dimension
+     */
+    public void set(CrimeRecord record, CrimeDimension[] distinctDimensions, CrimeGrid grid) {
+        clear(distinctDimensions.length);
+        count = 1;
+        for (int i = 0; i < distinctDimensions.length; i++) {
+            distinct.get(i).add(distinctDimensions[i].value(record, grid));
+        }
+    }
+
+    /**
+     * Empties the aggregate.
+     * @param distinctDimensions the number of dimensions whose distinct values are counted
+     */
+    public void clear(int distinctDimensions) {
+        count = 0;
+        while (distinct.size() > distinctDimensions) {
+            distinct.remove(distinct.size() - 1);
+        }
+        for (Set<String> values : distinct) {
+            values.clear();
+        }
+        while (distinct.size() < distinctDimensions) {
+            distinct.add(new TreeSet<>());
+        }
+    }
+
+    /**
+     * Adds another aggregate of the same group to this one.
+     */
+    public void merge(CrimeAggregate other) {
+        count += other.count;
+        for (int i = 0; i < distinct.size(); i++) {
+            distinct.get(i).addAll(other.distinct.get(i));
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of distinct values of the i-th distinct dimension
+     */
+    public int getDistinct(int i) {
+        return distinct.get(i).size();
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeByte(distinct.size());
+        for (Set<String> values : distinct) {
+            out.writeInt(values.size());
+            for (String value : values) {
+                out.writeUTF(value);
+            }
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        long readCount = in.readLong();
+        clear(in.readUnsignedByte());
+        count = readCount;
+        for (Set<String> values : distinct) {
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                values.add(in.readUTF());
+            }
+        }
+    }
+
+    /**
+     * @return the count and the distinct counts separated by tabs
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder().append(count);
+        for (Set<String> values : distinct) {
+            result.append('\t').append(values.size());
+        }
+        return result.toString();
+    }
+}
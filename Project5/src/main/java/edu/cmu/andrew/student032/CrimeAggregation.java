@@ -0,0 +1,206 @@
+/**
+ * This MapReduce program answers many group-by questions about the crime data in one scan,
+ * instead of one near-identical job per question.
+ * - crime.aggregate.groupings is a semicolon separated list of groupings, each a comma separated
+ *   list of CrimeDimension names (offense, zone, tract, year, month, hour), or * for all crimes,
+ *   e.g. "offense;offense,zone,month;*". The default is "offense".
+ * - crime.aggregate.distinct is a comma separated list of dimensions whose distinct values are
+ *   counted in every group, e.g. "tract" for the number of tracts with crimes. The default is none.
+ * - crime.aggregate.offenses restricts the job to crimes whose offense is one of a comma separated
+ *   list, in any case, e.g. "rape,robbery". The default is all offenses.
+ * Every grouping is written to its own directory, named after its dimensions like offense_zone_month,
+ * or total for *. A line has the values of the dimensions, the number of crimes and the distinct counts,
+ * separated by tabs. The combiner merges the partial aggregates of each group before the shuffle.
+ * The input is the tab separated crime file, or the columnar format when crime.input.columnar is true.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.LazyOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public class CrimeAggregation extends Configured implements Tool {
+    public static final String GROUPINGS_KEY = "crime.aggregate.groupings";
+    public static final String DISTINCT_KEY = "crime.aggregate.distinct";
+    public static final String OFFENSES_KEY = "crime.aggregate.offenses";
+    public static final String DEFAULT_GROUPINGS = "offense";
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = ToolRunner.run(new CrimeAggregation(), args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        Job job = Job.getInstance(getConf(), "Crime aggregation");
+        job.setJarByClass(getClass());
+        Configuration conf = job.getConfiguration();
+
+        job.setOutputKeyClass(CrimeGroupKey.class);
+        job.setOutputValueClass(CrimeAggregate.class);
+
+        job.setMapperClass(AggregationMapper.class);
+        job.setCombinerClass(AggregationCombiner.class);
+        job.setReducerClass(AggregationReducer.class);
+
+        LazyOutputFormat.setOutputFormatClass(job, TextOutputFormat.class);
+
+        EnumSet<CrimeColumn> columns = EnumSet.of(CrimeColumn.OFFENSE);
+        for (CrimeDimension[] grouping : groupings(conf)) {
+            for (CrimeDimension dimension : grouping) {
+                Collections.addAll(columns, dimension.getColumns());
+            }
+        }
+        for (CrimeDimension dimension : CrimeDimension.parse(conf.get(DISTINCT_KEY, ""))) {
+            Collections.addAll(columns, dimension.getColumns());
+        }
+        CrimeRecordMapper.setInput(job, new Path(args[0]), columns.toArray(new CrimeColumn[0]));
+        FileOutputFormat.setOutputPath(job, new Path(args[1]));
+
+        return job.waitForCompletion(true) ? 0 : 1;
+    }
+
+    /**
+     * @return the dimensions of each grouping in crime.aggregate.groupings
+     */
+    static List<CrimeDimension[]> groupings(Configuration conf) {
+        List<CrimeDimension[]> groupings = new ArrayList<>();
+        for (String grouping : conf.get(GROUPINGS_KEY, DEFAULT_GROUPINGS).split(";")) {
+            if (!grouping.trim().isEmpty()) {
+                groupings.add(CrimeDimension.parse(grouping));
+            }
+        }
+        if (groupings.isEmpty() || groupings.size() > 255) {
+            throw new IllegalArgumentException(GROUPINGS_KEY + " must have 1 to 255 groupings");
+        }
+        return groupings;
+    }
+
+    /**
+     * @return the name of the output directory of a grouping, like offense_month
+     */
+    static String outputName(CrimeDimension[] grouping) {
+        if (grouping.length == 0) {
+            return "total";
+        }
+        StringBuilder name = new StringBuilder();
+        for (CrimeDimension dimension : grouping) {
+            name.append(name.length() > 0 ? "_" : "").append(dimension.name().toLowerCase(Locale.ROOT));
+        }
+        return name.toString();
+    }
+
+    /**
+     * Writes the crime once for every grouping, with its group as the key.
+     */
+    public static class AggregationMapper extends CrimeRecordMapper<CrimeGroupKey, CrimeAggregate> {
+        private final CrimeGroupKey key = new CrimeGroupKey();
+        private final CrimeAggregate aggregate = new CrimeAggregate();
+        private List<CrimeDimension[]> groupings;
+        private CrimeDimension[] distinct;
+        private Set<String> offenses;
+        private CrimeGrid grid;
+
+        @Override
+        protected void setup(Context context) {
+            Configuration conf = context.getConfiguration();
+            groupings = groupings(conf);
+            distinct = CrimeDimension.parse(conf.get(DISTINCT_KEY, ""));
+            offenses = new HashSet<>();
+            for (String offense : conf.getTrimmedStringCollection(OFFENSES_KEY)) {
+                offenses.add(offense.toLowerCase(Locale.ROOT));
+            }
+            grid = CrimeGrid.fromConf(conf);
+        }
+
+        @Override
+        protected void process(CrimeRecord record, Context context) throws IOException, InterruptedException {
+            if (!offenses.isEmpty() && !offenses.contains(record.getOffense().trim().toLowerCase(Locale.ROOT))) {
+                return;
+            }
+            aggregate.set(record, distinct, grid);
+            for (int i = 0; i < groupings.size(); i++) {
+                key.set(i, groupings.get(i), record, grid);
+                context.write(key, aggregate);
+            }
+        }
+    }
+
+    /**
+     * Merges the partial aggregates of each group.
+     */
+    public static class AggregationCombiner extends Reducer<CrimeGroupKey, CrimeAggregate, CrimeGroupKey, CrimeAggregate> {
+        private final CrimeAggregate result = new CrimeAggregate();
+        private int distinct;
+
+        @Override
+        protected void setup(Context context) {
+            distinct = CrimeDimension.parse(context.getConfiguration().get(DISTINCT_KEY, "")).length;
+        }
+
+        @Override
+        public void reduce(CrimeGroupKey key, Iterable<CrimeAggregate> values, Context context) throws IOException, InterruptedException {
+            result.clear(distinct);
+            for (CrimeAggregate value : values) {
+                result.merge(value);
+            }
+            context.write(key, result);
+        }
+    }
+
+    /**
+     * Merges the partial aggregates of each group and writes the group to the directory of its grouping.
+     */
+    public static class AggregationReducer extends Reducer<CrimeGroupKey, CrimeAggregate, Writable, CrimeAggregate> {
+        private final CrimeAggregate result = new CrimeAggregate();
+        private MultipleOutputs<Writable, CrimeAggregate> outputs;
+        private List<CrimeDimension[]> groupings;
+        private int distinct;
+
+        @Override
+        protected void setup(Context context) {
+            outputs = new MultipleOutputs<>(context);
+            groupings = groupings(context.getConfiguration());
+            distinct = CrimeDimension.parse(context.getConfiguration().get(DISTINCT_KEY, "")).length;
+        }
+
+        @Override
+        public void reduce(CrimeGroupKey key, Iterable<CrimeAggregate> values, Context context) throws IOException, InterruptedException {
+            result.clear(distinct);
+            for (CrimeAggregate value : values) {
+                result.merge(value);
+            }
+            CrimeDimension[] grouping = groupings.get(key.getGrouping());
+            String path = outputName(grouping) + "/part";
+            if (grouping.length == 0) {
+                outputs.write(NullWritable.get(), result, path);
+            } else {
+                outputs.write(key, result, path);
+            }
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            outputs.close();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * This MapReduce program counts the crimes around many places in one pass over the crime data,
+ * instead of running AggravatedAssaults once per place.
+ * Usage: CrimeBatchRadiusQuery <crime data> <output> <queries file>
+ * The queries file (see CrimeQuerySet) is shipped to the tasks through the distributed cache.
+ * Every mapper matches its records against all queries with the grid of CrimeQuerySet, keeps one
+ * count per query and writes the counts when it is done. The output has one line "id count" per
+ * query, in the order of the queries file, including the queries without any crime.
+ * The input is the tab separated crime file, or the columnar format when crime.input.columnar is true.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.io.IOException;
+import java.net.URI;
+
+public class CrimeBatchRadiusQuery extends Configured implements Tool {
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = ToolRunner.run(new CrimeBatchRadiusQuery(), args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        Job job = Job.getInstance(getConf(), "Crime batch radius query");
+        job.setJarByClass(getClass());
+
+        job.setMapOutputKeyClass(IntWritable.class);
+        job.setMapOutputValueClass(LongWritable.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(LongWritable.class);
+
+        job.setMapperClass(BatchQueryMapper.class);
+        job.setReducerClass(BatchQueryReducer.class);
+        // a single reducer writes the count table in the order of the queries file
+        job.setNumReduceTasks(1);
+
+        job.setOutputFormatClass(TextOutputFormat.class);
+
+        CrimeRecordMapper.setInput(job, new Path(args[0]), CrimeColumn.X, CrimeColumn.Y, CrimeColumn.OFFENSE);
+        FileOutputFormat.setOutputPath(job, new Path(args[1]));
+        Path queries = new Path(args[2]);
+        URI queriesUri = queries.getFileSystem(job.getConfiguration()).makeQualified(queries).toUri();
+        job.addCacheFile(new URI(queriesUri + "#" + CrimeQuerySet.CACHE_LINK));
+
+        return job.waitForCompletion(true) ? 0 : 1;
+    }
+
+    /**
+     * Counts the records matching each query and writes (query index, count) for all queries in cleanup.
+     */
+    public static class BatchQueryMapper extends CrimeRecordMapper<IntWritable, LongWritable> {
+        private final IntWritable index = new IntWritable();
+        private final LongWritable count = new LongWritable();
+        private CrimeQuerySet queries;
+        private long[] counts;
+
+        @Override
+        protected void setup(Context context) throws IOException {
+            queries = CrimeQuerySet.fromCache(context);
+            counts = new long[queries.size()];
+        }
+
+        @Override
+        protected void process(CrimeRecord record, Context context) {
+            queries.count(record, counts);
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            for (int i = 0; i < counts.length; i++) {
+                index.set(i);
+                count.set(counts[i]);
+                context.write(index, count);
+            }
+        }
+    }
+
+    /**
+     * Sums the counts of each query and writes them with the id of the query.
+     */
+    public static class BatchQueryReducer extends Reducer<IntWritable, LongWritable, Text, LongWritable> {
+        private final Text id = new Text();
+        private final LongWritable total = new LongWritable();
+        private CrimeQuerySet queries;
+
+        @Override
+        protected void setup(Context context) throws IOException {
+            queries = CrimeQuerySet.fromCache(context);
+        }
+
+        @Override
+        public void reduce(IntWritable key, Iterable<LongWritable> values, Context context) throws IOException, InterruptedException {
+            long sum = 0;
+            for (LongWritable value : values) {
+                sum += value.get();
+            }
+            id.set(queries.getId(key.get()));
+            total.set(sum);
+            context.write(id, total);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * The columns of the columnar crime format, see CrimeColumnarOutputFormat.
+ * The ordinal of each column is its id in the files, so new columns must be added at the end.
+ */
+package edu.cmu.andrew.student032;
+
+import java.util.EnumSet;
+import java.util.Locale;
+
+public enum CrimeColumn {
+    X, Y, LAT, LON, OFFENSE, TRACT, DATE, HOUR;
+
+    /**
+     * Parses a comma separated list of column names such as "x,y,offense".
+     * @param names the column names, in any case
+     * @return the named columns, or all columns if the list is empty
+     */
+    public static EnumSet<CrimeColumn> parse(String names) {
+        EnumSet<CrimeColumn> columns = EnumSet.noneOf(CrimeColumn.class);
+        for (String name : names.split(",")) {
+            if (!name.trim().isEmpty()) {
+                columns.add(valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        return columns.isEmpty() ? EnumSet.allOf(CrimeColumn.class) : columns;
+    }
+}
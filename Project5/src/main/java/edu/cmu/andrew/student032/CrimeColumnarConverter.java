@@ -0,0 +1,57 @@
+/**
+ * This MapReduce program converts the tab separated crime file into the columnar crime format
+ * once, so that the crime jobs can read typed columns instead of parsing text on every run.
+ * It is a map-only job that writes one columnar file per input split.
+ * To run the crime jobs on its output, set crime.input.columnar=true.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.io.IOException;
+
+public class CrimeColumnarConverter extends Configured implements Tool {
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = ToolRunner.run(new CrimeColumnarConverter(), args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        Job job = Job.getInstance(getConf(), "Crime columnar conversion");
+        job.setJarByClass(getClass());
+
+        job.setOutputKeyClass(NullWritable.class);
+        job.setOutputValueClass(CrimeRecord.class);
+
+        job.setMapperClass(ConverterMapper.class);
+        job.setNumReduceTasks(0);
+
+        job.setInputFormatClass(TextInputFormat.class);
+        job.setOutputFormatClass(CrimeColumnarOutputFormat.class);
+
+        FileInputFormat.setInputPaths(job, new Path(args[0]));
+        FileOutputFormat.setOutputPath(job, new Path(args[1]));
+
+        return job.waitForCompletion(true) ? 0 : 1;
+    }
+
+    /**
+     * Writes every parsed crime record unchanged.
+     */
+    public static class ConverterMapper extends CrimeRecordMapper<NullWritable, CrimeRecord> {
+        @Override
+        protected void process(CrimeRecord record, Context context) throws IOException, InterruptedException {
+            context.write(NullWritable.get(), record);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/**
+ * This input format reads the files written by CrimeColumnarOutputFormat.
+ * Only the columns listed in crime.columnar.columns are decoded; the others are skipped
+ * with a seek, and the matching fields of the CrimeRecord are left unchanged.
+ * The same CrimeRecord instance is returned for every record, and its offense and tract
+ * strings are shared by all records of a row group.
+ * For a job that answers a radius query (setRadiusQuery), files with a CrimeGridIndex are read
+ * only at the row groups of the cells that overlap the circle.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+public class CrimeColumnarInputFormat extends FileInputFormat<NullWritable, CrimeRecord> {
+    public static final String COLUMNS_KEY = "crime.columnar.columns";
+    public static final String RADIUS_QUERY_KEY = "crime.columnar.radius.query";
+
+    /**
+     * Sets the columns a job reads, e.g. setColumns(job, CrimeColumn.X, CrimeColumn.Y, CrimeColumn.OFFENSE).
+     * @param job the job to be configured
+     * @param columns the columns the mapper uses
+     */
+    public static void setColumns(Job job, CrimeColumn... columns) {
+        StringBuilder names = new StringBuilder();
+        for (CrimeColumn column : columns) {
+            names.append(names.length() > 0 ? "," : "").append(column.name());
+        }
+        job.getConfiguration().set(COLUMNS_KEY, names.toString());
+    }
+
+    /**
+     * Restricts the records read from indexed files to the grid cells a radius query can match.
+     * The mapper still has to check every record with CrimeRadiusQuery.matches().
+     * @param job the job to be configured
+     * @param query the radius query of the job
+     */
+    public static void setRadiusQuery(Job job, CrimeRadiusQuery query) {
+        query.toConf(job.getConfiguration());
+        job.getConfiguration().setBoolean(RADIUS_QUERY_KEY, true);
+    }
+
+    @Override
+    protected boolean isSplitable(JobContext context, Path file) {
+        return false;
+    }
+
+    @Override
+    public RecordReader<NullWritable, CrimeRecord> createRecordReader(InputSplit split, TaskAttemptContext context) {
+        return new ColumnarRecordReader();
+    }
+
+    /**
+     * Decodes one row group at a time into arrays and fills the record from them.
+     */
+    static class ColumnarRecordReader extends RecordReader<NullWritable, CrimeRecord> {
+        private final CrimeRecord record = new CrimeRecord();
+        private FSDataInputStream in;
+        private long length;
+        private EnumSet<CrimeColumn> columns;
+        private double[] x = new double[0];
+        private double[] y = new double[0];
+        private double[] lat = new double[0];
+        private double[] lon = new double[0];
+        private String[] offenseValues = new String[0];
+        private int[] offenseIds = new int[0];
+        private String[] tractValues = new String[0];
+        private int[] tractIds = new int[0];
+        private int[] dates = new int[0];
+        private byte[] hours = new byte[0];
+        private byte[] buffer = new byte[0];
+        // the offsets of the row groups to read, or null to read the whole file
+        private long[] rowGroups;
+        private int nextRowGroup;
+        private int rows;
+        private int row;
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context) throws IOException {
+            Configuration conf = context.getConfiguration();
+            Path file = ((FileSplit) split).getPath();
+            FileSystem fs = file.getFileSystem(conf);
+            long[] selected = null;
+            if (conf.getBoolean(RADIUS_QUERY_KEY, false)) {
+                CrimeGridIndex index = CrimeGridIndex.read(fs, file);
+                if (index != null) {
+                    selected = index.rowGroups(CrimeRadiusQuery.fromConf(conf));
+                }
+            }
+            FSDataInputStream stream = fs.open(file);
+            readHeader(stream, file);
+            open(stream, ((FileSplit) split).getLength(), CrimeColumn.parse(conf.get(COLUMNS_KEY, "")), selected);
+        }
+
+        /**
+         * Checks the magic bytes and version at the start of a columnar crime file.
+         */
+        static void readHeader(FSDataInputStream stream, Path file) throws IOException {
+            byte[] magic = new byte[CrimeColumnarOutputFormat.MAGIC.length];
+            stream.readFully(magic);
+            int version = stream.readInt();
+            if (!Arrays.equals(magic, CrimeColumnarOutputFormat.MAGIC) || version != CrimeColumnarOutputFormat.VERSION) {
+                throw new IOException(file + " is not a columnar crime file of version " + CrimeColumnarOutputFormat.VERSION);
+            }
+        }
+
+        /**
+         * Starts reading a columnar crime file. The reader can be opened again on the same stream
+         * to read other row groups, which is how CrimeRadiusSearch answers many queries.
+         * @param stream the file, positioned after the header if rowGroups is null
+         * @param fileLength the length of the file
+         * @param columns the columns to be decoded
+         * @param rowGroups the offsets of the row groups to read, or null to read to the end of the file
+         */
+        void open(FSDataInputStream stream, long fileLength, EnumSet<CrimeColumn> columns, long[] rowGroups) {
+            this.in = stream;
+            this.length = fileLength;
+            this.columns = columns;
+            this.rowGroups = rowGroups;
+            nextRowGroup = 0;
+            rows = 0;
+            row = 0;
+        }
+
+        @Override
+        public boolean nextKeyValue() throws IOException {
+            if (row == rows && !readRowGroup()) {
+                return false;
+            }
+            for (CrimeColumn column : columns) {
+                switch (column) {
+                    case X: record.setX(x[row]); break;
+                    case Y: record.setY(y[row]); break;
+                    case LAT: record.setLat(lat[row]); break;
+                    case LON: record.setLon(lon[row]); break;
+                    case OFFENSE: record.setOffense(offenseValues[offenseIds[row]]); break;
+                    case TRACT: record.setTract(tractValues[tractIds[row]]); break;
+                    case DATE: record.setDate(dates[row]); break;
+                    case HOUR: record.setHour(hours[row]); break;
+                    default: break;
+                }
+            }
+            row++;
+            return true;
+        }
+
+        private boolean readRowGroup() throws IOException {
+            if (rowGroups != null) {
+                if (nextRowGroup == rowGroups.length) {
+                    return false;
+                }
+                in.seek(rowGroups[nextRowGroup++]);
+                rows = in.readInt();
+            } else {
+                try {
+                    rows = in.readInt();
+                } catch (EOFException e) {
+                    return false;
+                }
+            }
+            row = 0;
+            int numColumns = in.readUnsignedByte();
+            for (int i = 0; i < numColumns; i++) {
+                int id = in.readUnsignedByte();
+                int byteLength = in.readInt();
+                CrimeColumn column = id < CrimeColumn.values().length ? CrimeColumn.values()[id] : null;
+                if (column == null || !columns.contains(column)) {
+                    in.seek(in.getPos() + byteLength);
+                    continue;
+                }
+                if (buffer.length < byteLength) {
+                    buffer = new byte[byteLength];
+                }
+                in.readFully(buffer, 0, byteLength);
+                ByteBuffer values = ByteBuffer.wrap(buffer, 0, byteLength);
+                switch (column) {
+                    case X: x = readDoubles(values, x); break;
+                    case Y: y = readDoubles(values, y); break;
+                    case LAT: lat = readDoubles(values, lat); break;
+                    case LON: lon = readDoubles(values, lon); break;
+                    case OFFENSE:
+                        offenseValues = readDictionary(values);
+                        offenseIds = readIds(values, offenseIds);
+                        break;
+                    case TRACT:
+                        tractValues = readDictionary(values);
+                        tractIds = readIds(values, tractIds);
+                        break;
+                    case DATE:
+                        dates = dates.length < rows ? new int[rows] : dates;
+                        values.asIntBuffer().get(dates, 0, rows);
+                        break;
+                    case HOUR:
+                        hours = hours.length < rows ? new byte[rows] : hours;
+                        values.get(hours, 0, rows);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return rows > 0 || readRowGroup();
+        }
+
+        private double[] readDoubles(ByteBuffer values, double[] array) {
+            double[] result = array.length < rows ? new double[rows] : array;
+            values.asDoubleBuffer().get(result, 0, rows);
+            return result;
+        }
+
+        private String[] readDictionary(ByteBuffer values) throws IOException {
+            DataInputStream strings = new DataInputStream(new ByteArrayInputStream(buffer, values.position(), values.remaining()));
+            String[] dictionary = new String[strings.readInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = strings.readUTF();
+            }
+            values.position(values.limit() - strings.available());
+            return dictionary;
+        }
+
+        private int[] readIds(ByteBuffer values, int[] ids) {
+            int[] result = ids.length < rows ? new int[rows] : ids;
+            int width = values.get() & 0xff;
+            for (int r = 0; r < rows; r++) {
+                result[r] = width == 1 ? values.get() & 0xff : width == 2 ? values.getShort() & 0xffff : values.getInt();
+            }
+            return result;
+        }
+
+        @Override
+        public NullWritable getCurrentKey() {
+            return NullWritable.get();
+        }
+
+        @Override
+        public CrimeRecord getCurrentValue() {
+            return record;
+        }
+
+        @Override
+        public float getProgress() throws IOException {
+            if (rowGroups != null) {
+                return rowGroups.length == 0 ? 1 : nextRowGroup / (float) rowGroups.length;
+            }
+            return length == 0 ? 1 : Math.min(1, in.getPos() / (float) length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+}
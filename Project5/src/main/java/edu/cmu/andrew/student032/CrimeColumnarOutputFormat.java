@@ -0,0 +1,205 @@
+/**
+ * This output format writes crime records in a compact columnar binary format,
+ * so the crime jobs don't have to parse the tab separated text on every run.
+ * A file starts with the magic bytes "CRIMECOL" and a version number, followed by row groups of
+ * up to crime.columnar.rowgroup.size records. A row group holds its number of rows and then each
+ * column as (column id, byte length, values), so a reader can skip the columns it does not need:
+ * - X, Y, LAT and LON are doubles
+ * - OFFENSE and TRACT are dictionary encoded: the distinct strings of the row group, then one id per row
+ * - DATE is an int (yyyymmdd) and HOUR is a byte
+ * Files are read back with CrimeColumnarInputFormat.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CrimeColumnarOutputFormat extends FileOutputFormat<NullWritable, CrimeRecord> {
+    public static final String ROW_GROUP_SIZE_KEY = "crime.columnar.rowgroup.size";
+    public static final int DEFAULT_ROW_GROUP_SIZE = 65536;
+    static final byte[] MAGIC = {'C', 'R', 'I', 'M', 'E', 'C', 'O', 'L'};
+    static final int VERSION = 1;
+    static final String EXTENSION = ".crime";
+
+    @Override
+    public RecordWriter<NullWritable, CrimeRecord> getRecordWriter(TaskAttemptContext context) throws IOException {
+        Configuration conf = context.getConfiguration();
+        Path file = getDefaultWorkFile(context, EXTENSION);
+        FSDataOutputStream out = file.getFileSystem(conf).create(file, false);
+        return new ColumnarRecordWriter(out, conf.getInt(ROW_GROUP_SIZE_KEY, DEFAULT_ROW_GROUP_SIZE));
+    }
+
+    /**
+     * Buffers the records of one row group column by column and writes the group when it is full.
+     */
+    static class ColumnarRecordWriter extends RecordWriter<NullWritable, CrimeRecord> {
+        private final FSDataOutputStream out;
+        private final int rowGroupSize;
+        private final double[] x;
+        private final double[] y;
+        private final double[] lat;
+        private final double[] lon;
+        private final Dictionary offenses;
+        private final Dictionary tracts;
+        private final int[] dates;
+        private final byte[] hours;
+        private final ByteArrayOutputStream columnBytes = new ByteArrayOutputStream();
+        private final DataOutputStream column = new DataOutputStream(columnBytes);
+        private int rows;
+
+        ColumnarRecordWriter(FSDataOutputStream out, int rowGroupSize) throws IOException {
+            this.out = out;
+            this.rowGroupSize = rowGroupSize;
+            x = new double[rowGroupSize];
+            y = new double[rowGroupSize];
+            lat = new double[rowGroupSize];
+            lon = new double[rowGroupSize];
+            offenses = new Dictionary(rowGroupSize);
+            tracts = new Dictionary(rowGroupSize);
+            dates = new int[rowGroupSize];
+            hours = new byte[rowGroupSize];
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+        @Override
+        public void write(NullWritable key, CrimeRecord record) throws IOException {
+            x[rows] = record.getX();
+            y[rows] = record.getY();
+            lat[rows] = record.getLat();
+            lon[rows] = record.getLon();
+            offenses.add(rows, record.getOffense());
+            tracts.add(rows, record.getTract());
+            dates[rows] = record.getDate();
+            hours[rows] = (byte) record.getHour();
+            rows++;
+            if (rows == rowGroupSize) {
+                writeRowGroup();
+            }
+        }
+
+        /**
+         * @return the number of records buffered for the current row group
+         */
+        int bufferedRows() {
+            return rows;
+        }
+
+        /**
+         * @return the offset the current row group will be written at
+         */
+        long position() throws IOException {
+            return out.getPos();
+        }
+
+        /**
+         * Writes the buffered records as a row group, even if it is not full.
+         */
+        void writeRowGroup() throws IOException {
+            if (rows == 0) {
+                return;
+            }
+            out.writeInt(rows);
+            out.writeByte(CrimeColumn.values().length);
+            for (CrimeColumn id : CrimeColumn.values()) {
+                columnBytes.reset();
+                switch (id) {
+                    case X: writeDoubles(x); break;
+                    case Y: writeDoubles(y); break;
+                    case LAT: writeDoubles(lat); break;
+                    case LON: writeDoubles(lon); break;
+                    case OFFENSE: offenses.write(column, rows); break;
+                    case TRACT: tracts.write(column, rows); break;
+                    case DATE:
+                        for (int i = 0; i < rows; i++) {
+                            column.writeInt(dates[i]);
+                        }
+                        break;
+                    case HOUR: column.write(hours, 0, rows); break;
+                    default: throw new IllegalStateException("Unknown column " + id);
+                }
+                column.flush();
+                out.writeByte(id.ordinal());
+                out.writeInt(columnBytes.size());
+                columnBytes.writeTo(out);
+            }
+            offenses.clear();
+            tracts.clear();
+            rows = 0;
+        }
+
+        private void writeDoubles(double[] values) throws IOException {
+            for (int i = 0; i < rows; i++) {
+                column.writeDouble(values[i]);
+            }
+        }
+
+        @Override
+        public void close(TaskAttemptContext context) throws IOException {
+            writeRowGroup();
+            out.close();
+        }
+    }
+
+    /**
+     * The distinct strings of a column in one row group, and the id of each row's string.
+     */
+    static class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final int[] rowIds;
+
+        Dictionary(int rowGroupSize) {
+            rowIds = new int[rowGroupSize];
+        }
+
+        void add(int row, String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            rowIds[row] = id;
+        }
+
+        /**
+         * Writes the number of distinct strings, the strings, the width of an id in bytes and the ids.
+         */
+        void write(DataOutputStream column, int rows) throws IOException {
+            column.writeInt(values.size());
+            for (String value : values) {
+                column.writeUTF(value);
+            }
+            int width = values.size() <= 256 ? 1 : values.size() <= 65536 ? 2 : 4;
+            column.writeByte(width);
+            for (int i = 0; i < rows; i++) {
+                if (width == 1) {
+                    column.writeByte(rowIds[i]);
+                } else if (width == 2) {
+                    column.writeShort(rowIds[i]);
+                } else {
+                    column.writeInt(rowIds[i]);
+                }
+            }
+        }
+
+        void clear() {
+            ids.clear();
+            values.clear();
+        }
+    }
+}
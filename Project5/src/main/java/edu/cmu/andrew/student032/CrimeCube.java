@@ -0,0 +1,161 @@
+/**
+ * This program answers crime count questions from the rollup cube built by CrimeCubeBuilder,
+ * reading a few rows of the monthly partition files instead of the crime data.
+ * Usage: CrimeCube <cube dir> <offenses> <from yyyymmdd> <to yyyymmdd> [x y]
+ * where offenses is a comma separated list in any case, such as rape,robbery, or * for all,
+ * and x y restricts the count to the zone of the point.
+ * Whole months without a zone are answered from the offense totals in the headers, whole months
+ * of a zone from the offense x zone rollup, day ranges from the offense x day rollup, and only
+ * day ranges of a zone from the base cuboid.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+public class CrimeCube extends Configured implements Tool {
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = ToolRunner.run(new CrimeCube(), args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        Path dir = new Path(args[0]);
+        FileSystem fs = dir.getFileSystem(getConf());
+        Set<String> offenses = parseOffenses(args[1]);
+        int from = Integer.parseInt(args[2]);
+        int to = Integer.parseInt(args[3]);
+        Long zone = null;
+        if (args.length > 5) {
+            zone = new CrimeGrid(cellSize(fs, dir)).cell(Double.parseDouble(args[4]), Double.parseDouble(args[5]));
+        }
+        System.out.println(count(fs, dir, offenses, zone, from, to));
+        return 0;
+    }
+
+    /**
+     * @return the lower case offenses of a comma separated list, or null for *
+     */
+    static Set<String> parseOffenses(String list) {
+        if (list.trim().equals("*")) {
+            return null;
+        }
+        Set<String> offenses = new HashSet<>();
+        for (String offense : list.split(",")) {
+            offenses.add(offense.trim().toLowerCase(Locale.ROOT));
+        }
+        return offenses;
+    }
+
+    /**
+     * @return the cell size of the zones of a cube, or the default if the cube is empty
+     */
+    static double cellSize(FileSystem fs, Path dir) throws IOException {
+        for (FileStatus status : fs.listStatus(dir)) {
+            if (isPartition(status.getPath())) {
+                try (FSDataInputStream in = fs.open(status.getPath())) {
+                    return CrimeCubePartition.Header.read(in).cellSize;
+                }
+            }
+        }
+        return CrimeGrid.DEFAULT_CELL_SIZE;
+    }
+
+    static boolean isPartition(Path path) {
+        return path.getName().matches("\\d{6}\\" + CrimeCubePartition.EXTENSION);
+    }
+
+    /**
+     * Counts the crimes of some offenses in a date range.
+     * @param fs the file system of the cube
+     * @param dir the directory of the cube
+     * @param offenses the lower case offenses, or null for all
+     * @param zone the zone, or null for all zones
+     * @param from the first day as yyyymmdd
+     * @param to the last day as yyyymmdd
+     * @return the number of crimes
+     */
+    public static long count(FileSystem fs, Path dir, Set<String> offenses, Long zone, int from, int to) throws IOException {
+        long count = 0;
+        for (FileStatus status : fs.listStatus(dir)) {
+            Path path = status.getPath();
+            if (!isPartition(path)) {
+                continue;
+            }
+            int month = Integer.parseInt(path.getName().substring(0, 6));
+            if (month < from / 100 || month > to / 100) {
+                continue;
+            }
+            try (FSDataInputStream in = fs.open(path)) {
+                count += count(in, offenses, zone, from, to);
+            }
+        }
+        return count;
+    }
+
+    private static long count(FSDataInputStream in, Set<String> offenses, Long zone, int from, int to) throws IOException {
+        CrimeCubePartition.Header header = CrimeCubePartition.Header.read(in);
+        int firstDay = header.month * 100;
+        // days are numbered from 1, so a range from the 1st to the last day of the month is the whole month;
+        // month 0 holds the crimes without a valid date, which are never a whole month
+        boolean wholeMonth = CrimeCubePartition.isMonth(header.month) && from <= firstDay + 1
+                && to >= firstDay + CrimeCubePartition.lengthOfMonth(header.month);
+        long count = 0;
+        for (int i = 0; i < header.offenses.length; i++) {
+            if (offenses != null && !offenses.contains(header.offenses[i].toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            if (zone == null && wholeMonth) {
+                count += header.totals[i];
+            } else if (zone == null) {
+                ByteBuffer rows = readRows(in, header.dayOffset(), header.dayStart[i], header.dayRows[i], CrimeCubePartition.DAY_ROW);
+                while (rows.hasRemaining()) {
+                    int date = firstDay + (rows.get() & 0xff);
+                    int rowCount = rows.getInt();
+                    if (date >= from && date <= to) {
+                        count += rowCount;
+                    }
+                }
+            } else if (wholeMonth) {
+                ByteBuffer rows = readRows(in, header.zoneOffset(), header.zoneStart[i], header.zoneRows[i], CrimeCubePartition.ZONE_ROW);
+                while (rows.hasRemaining()) {
+                    long rowZone = rows.getLong();
+                    int rowCount = rows.getInt();
+                    if (rowZone == zone) {
+                        count += rowCount;
+                    }
+                }
+            } else {
+                ByteBuffer rows = readRows(in, header.length, header.baseStart[i], header.baseRows[i], CrimeCubePartition.BASE_ROW);
+                while (rows.hasRemaining()) {
+                    long rowZone = rows.getLong();
+                    int date = firstDay + (rows.get() & 0xff);
+                    int rowCount = rows.getInt();
+                    if (rowZone == zone && date >= from && date <= to) {
+                        count += rowCount;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static ByteBuffer readRows(FSDataInputStream in, long sectionOffset, int start, int rows, int rowLength) throws IOException {
+        byte[] bytes = new byte[rows * rowLength];
+        in.readFully(sectionOffset + (long) start * rowLength, bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * This MapReduce program builds the crime rollup cube: the number of crimes by offense, zone
+ * (the CrimeGrid cell of crime.grid.cell.size feet) and day, with its rollups, in one file per
+ * month (see CrimeCubePartition). Count questions are then answered with CrimeCube, and new days
+ * of data are merged into the affected months with CrimeCubeUpdate instead of rebuilding the cube.
+ * The input is the tab separated crime file, or the columnar format when crime.input.columnar is true.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.io.IOException;
+
+public class CrimeCubeBuilder extends Configured implements Tool {
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = ToolRunner.run(new CrimeCubeBuilder(), args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        Job job = Job.getInstance(getConf(), "Crime cube");
+        job.setJarByClass(getClass());
+
+        job.setMapOutputKeyClass(IntWritable.class);
+        job.setMapOutputValueClass(CrimeCubeCell.class);
+        job.setOutputKeyClass(IntWritable.class);
+        job.setOutputValueClass(CrimeCubePartition.class);
+
+        job.setMapperClass(CubeMapper.class);
+        job.setCombinerClass(CubeCombiner.class);
+        job.setReducerClass(CubeReducer.class);
+
+        job.setOutputFormatClass(CrimeCubeOutputFormat.class);
+
+        CrimeRecordMapper.setInput(job, new Path(args[0]), CrimeColumn.X, CrimeColumn.Y, CrimeColumn.OFFENSE, CrimeColumn.DATE);
+        FileOutputFormat.setOutputPath(job, new Path(args[1]));
+
+        return job.waitForCompletion(true) ? 0 : 1;
+    }
+
+    /**
+     * Writes a cell with a count of one for every crime, keyed by its month. Crimes without a valid
+     * date go to month 0, see CrimeCubePartition.month, and are counted in the Dates counters.
+     */
+    public static class CubeMapper extends CrimeRecordMapper<IntWritable, CrimeCubeCell> {
+        /**
+         * The counters of the dates of the crimes.
+         */
+        public enum Dates {
+            VALID, INVALID
+        }
+
+        private final IntWritable month = new IntWritable();
+        private final CrimeCubeCell cell = new CrimeCubeCell();
+        private CrimeGrid grid;
+
+        @Override
+        protected void setup(Context context) {
+            grid = CrimeGrid.fromConf(context.getConfiguration());
+        }
+
+        @Override
+        protected void process(CrimeRecord record, Context context) throws IOException, InterruptedException {
+            month.set(CrimeCubePartition.month(record.getDate()));
+            context.getCounter(month.get() == 0 ? Dates.INVALID : Dates.VALID).increment(1);
+            cell.set(record.getOffense().trim(), grid.cell(record.getX(), record.getY()), CrimeCubePartition.day(record.getDate()), 1);
+            context.write(month, cell);
+        }
+    }
+
+    /**
+     * Adds up the cells of a month that have the same offense, zone and day.
+     */
+    public static class CubeCombiner extends Reducer<IntWritable, CrimeCubeCell, IntWritable, CrimeCubeCell> {
+        @Override
+        public void reduce(IntWritable month, Iterable<CrimeCubeCell> cells, Context context) throws IOException, InterruptedException {
+            CrimeCubePartition partition = new CrimeCubePartition(month.get(), 0);
+            for (CrimeCubeCell cell : cells) {
+                partition.add(cell);
+            }
+            partition.forEachCell(cell -> context.write(month, cell));
+        }
+    }
+
+    /**
+     * Builds the partition of a month.
+     */
+    public static class CubeReducer extends Reducer<IntWritable, CrimeCubeCell, IntWritable, CrimeCubePartition> {
+        private double cellSize;
+
+        @Override
+        protected void setup(Context context) {
+            cellSize = CrimeGrid.fromConf(context.getConfiguration()).getCellSize();
+        }
+
+        @Override
+        public void reduce(IntWritable month, Iterable<CrimeCubeCell> cells, Context context) throws IOException, InterruptedException {
+            CrimeCubePartition partition = new CrimeCubePartition(month.get(), cellSize);
+            for (CrimeCubeCell cell : cells) {
+                partition.add(cell);
+            }
+            context.write(month, partition);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * One cell of the crime rollup cube: the number of crimes of an offense in a zone on a day of the month.
+ * The month is the key of the records, see CrimeCubeBuilder.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class CrimeCubeCell implements Writable {
+    private String offense = "";
+    private long zone;
+    private int day;
+    private long count;
+
+    public void set(String offense, long zone, int day, long count) {
+        this.offense = offense;
+        this.zone = zone;
+        this.day = day;
+        this.count = count;
+    }
+
+    public String getOffense() {
+        return offense;
+    }
+
+    public long getZone() {
+        return zone;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeUTF(offense);
+        out.writeLong(zone);
+        out.writeByte(day);
+        out.writeLong(count);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        offense = in.readUTF();
+        zone = in.readLong();
+        day = in.readUnsignedByte();
+        count = in.readLong();
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * This output format writes every CrimeCubePartition it gets to its own file, named after its month.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+import java.io.IOException;
+
+public class CrimeCubeOutputFormat extends FileOutputFormat<IntWritable, CrimeCubePartition> {
+
+    @Override
+    public RecordWriter<IntWritable, CrimeCubePartition> getRecordWriter(TaskAttemptContext context) throws IOException {
+        Configuration conf = context.getConfiguration();
+        Path workPath = ((FileOutputCommitter) getOutputCommitter(context)).getWorkPath();
+        FileSystem fs = workPath.getFileSystem(conf);
+        return new RecordWriter<IntWritable, CrimeCubePartition>() {
+            @Override
+            public void write(IntWritable month, CrimeCubePartition partition) throws IOException {
+                try (FSDataOutputStream out = fs.create(new Path(workPath, CrimeCubePartition.fileName(month.get())), false)) {
+                    partition.write(out);
+                }
+            }
+
+            @Override
+            public void close(TaskAttemptContext context) {
+            }
+        };
+    }
+}
@@ -0,0 +1,317 @@
+/**
+ * One month of the crime rollup cube, and its file format.
+ * The base cuboid counts the crimes by offense, zone (the CrimeGrid cell) and day. A file holds it
+ * together with the rollups derived from it, so coarse questions read only a few bytes:
+ * - a header with the magic bytes "CRIMECUB", a version, the month (yyyymm), the cell size of the grid,
+ *   and for every offense its total for the month and the row range of the offense in each section,
+ *   which is the index of the file
+ * - the offense x zone x day section, rows of (zone, day, count) sorted by offense, zone and day
+ * - the offense x day section, rows of (day, count) sorted by offense and day
+ * - the offense x zone section, rows of (zone, count) sorted by offense and zone
+ * Rows have a fixed width, so a reader seeks straight to the rows of an offense.
+ */
+package edu.cmu.andrew.student032;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class CrimeCubePartition {
+    static final byte[] MAGIC = {'C', 'R', 'I', 'M', 'E', 'C', 'U', 'B'};
+    static final int VERSION = 1;
+    static final int BASE_ROW = 13;
+    static final int DAY_ROW = 5;
+    static final int ZONE_ROW = 12;
+    static final String EXTENSION = ".cube";
+
+    private final int month;
+    private final double cellSize;
+    // offense -> zone -> day of month -> count
+    private final TreeMap<String, TreeMap<Long, TreeMap<Integer, Long>>> counts = new TreeMap<>();
+
+    /**
+     * @param month the month as yyyymm, 0 for crimes without a valid date, see month(int)
+     * @param cellSize the cell size of the grid of the zones
+     */
+    public CrimeCubePartition(int month, double cellSize) {
+        this.month = month;
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * CrimeRecord gives 0 for dates it can not parse and does not check the others, so dates that are
+     * not a day of a real month are counted in month 0, like missing ones.
+     * @param date the date as yyyymmdd
+     * @return the month of the date as yyyymm, or 0 if the date is missing or invalid
+     */
+    public static int month(int date) {
+        return isDate(date) ? date / 100 : 0;
+    }
+
+    /**
+     * @return the day of month of a date, or 0 if the date is missing or invalid, see month(int)
+     */
+    public static int day(int date) {
+        return isDate(date) ? date % 100 : 0;
+    }
+
+    private static boolean isDate(int date) {
+        int day = date % 100;
+        return isMonth(date / 100) && day >= 1 && day <= lengthOfMonth(date / 100);
+    }
+
+    /**
+     * @return whether a partition month is a real month, false for month 0 and for months above 12
+     */
+    static boolean isMonth(int month) {
+        return month > 0 && month % 100 >= 1 && month % 100 <= 12;
+    }
+
+    /**
+     * @return the number of days of a month for which isMonth is true
+     */
+    static int lengthOfMonth(int month) {
+        return YearMonth.of(month / 100, month % 100).lengthOfMonth();
+    }
+
+    /**
+     * @return the name of the file of a month, like 200601.cube
+     */
+    public static String fileName(int month) {
+        return String.format("%06d", month) + EXTENSION;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public void add(String offense, long zone, int day, long count) {
+        counts.computeIfAbsent(offense, o -> new TreeMap<>())
+                .computeIfAbsent(zone, z -> new TreeMap<>())
+                .merge(day, count, Long::sum);
+    }
+
+    public void add(CrimeCubeCell cell) {
+        add(cell.getOffense(), cell.getZone(), cell.getDay(), cell.getCount());
+    }
+
+    /**
+     * Adds the counts of another partition of the same month, such as a daily delta.
+     */
+    public void merge(CrimeCubePartition other) throws IOException {
+        if (other.month != month || other.cellSize != cellSize) {
+            throw new IOException("Can not merge cube partition " + other.month + " with cell size " + other.cellSize
+                    + " into partition " + month + " with cell size " + cellSize);
+        }
+        for (Map.Entry<String, TreeMap<Long, TreeMap<Integer, Long>>> offense : other.counts.entrySet()) {
+            for (Map.Entry<Long, TreeMap<Integer, Long>> zone : offense.getValue().entrySet()) {
+                for (Map.Entry<Integer, Long> day : zone.getValue().entrySet()) {
+                    add(offense.getKey(), zone.getKey(), day.getKey(), day.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives the cells of a partition, see forEachCell.
+     */
+    public interface CellVisitor {
+        void visit(CrimeCubeCell cell) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Calls the visitor with every cell of the base cuboid. The cell is reused.
+     */
+    public void forEachCell(CellVisitor visitor) throws IOException, InterruptedException {
+        CrimeCubeCell cell = new CrimeCubeCell();
+        for (Map.Entry<String, TreeMap<Long, TreeMap<Integer, Long>>> offense : counts.entrySet()) {
+            for (Map.Entry<Long, TreeMap<Integer, Long>> zone : offense.getValue().entrySet()) {
+                for (Map.Entry<Integer, Long> day : zone.getValue().entrySet()) {
+                    cell.set(offense.getKey(), zone.getKey(), day.getKey(), day.getValue());
+                    visitor.visit(cell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the partition with its rollups and index.
+     */
+    public void write(DataOutputStream out) throws IOException {
+        int offenses = counts.size();
+        TreeMap<Integer, Long>[] days = newMaps(offenses);
+        TreeMap<Long, Long>[] zones = newMaps(offenses);
+        long[] totals = new long[offenses];
+        int[] baseRows = new int[offenses];
+        int i = 0;
+        for (TreeMap<Long, TreeMap<Integer, Long>> offense : counts.values()) {
+            for (Map.Entry<Long, TreeMap<Integer, Long>> zone : offense.entrySet()) {
+                for (Map.Entry<Integer, Long> day : zone.getValue().entrySet()) {
+                    days[i].merge(day.getKey(), day.getValue(), Long::sum);
+                    zones[i].merge(zone.getKey(), day.getValue(), Long::sum);
+                    totals[i] += day.getValue();
+                }
+                baseRows[i] += zone.getValue().size();
+            }
+            i++;
+        }
+
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(month);
+        out.writeDouble(cellSize);
+        out.writeInt(offenses);
+        int baseStart = 0;
+        int dayStart = 0;
+        int zoneStart = 0;
+        i = 0;
+        for (String offense : counts.keySet()) {
+            out.writeUTF(offense);
+            out.writeLong(totals[i]);
+            out.writeInt(baseStart);
+            out.writeInt(baseRows[i]);
+            out.writeInt(dayStart);
+            out.writeInt(days[i].size());
+            out.writeInt(zoneStart);
+            out.writeInt(zones[i].size());
+            baseStart += baseRows[i];
+            dayStart += days[i].size();
+            zoneStart += zones[i].size();
+            i++;
+        }
+        out.writeInt(baseStart);
+        out.writeInt(dayStart);
+        out.writeInt(zoneStart);
+
+        for (TreeMap<Long, TreeMap<Integer, Long>> offense : counts.values()) {
+            for (Map.Entry<Long, TreeMap<Integer, Long>> zone : offense.entrySet()) {
+                for (Map.Entry<Integer, Long> day : zone.getValue().entrySet()) {
+                    out.writeLong(zone.getKey());
+                    out.writeByte(day.getKey());
+                    out.writeInt(Math.toIntExact(day.getValue()));
+                }
+            }
+        }
+        for (TreeMap<Integer, Long> offenseDays : days) {
+            for (Map.Entry<Integer, Long> day : offenseDays.entrySet()) {
+                out.writeByte(day.getKey());
+                out.writeInt(Math.toIntExact(day.getValue()));
+            }
+        }
+        for (TreeMap<Long, Long> offenseZones : zones) {
+            for (Map.Entry<Long, Long> zone : offenseZones.entrySet()) {
+                out.writeLong(zone.getKey());
+                out.writeInt(Math.toIntExact(zone.getValue()));
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K> TreeMap<K, Long>[] newMaps(int size) {
+        TreeMap<K, Long>[] maps = new TreeMap[size];
+        for (int i = 0; i < size; i++) {
+            maps[i] = new TreeMap<>();
+        }
+        return maps;
+    }
+
+    /**
+     * Reads a whole partition, e.g. to merge a delta into it.
+     */
+    public static CrimeCubePartition read(DataInputStream in) throws IOException {
+        Header header = Header.read(in);
+        CrimeCubePartition partition = new CrimeCubePartition(header.month, header.cellSize);
+        for (int i = 0; i < header.offenses.length; i++) {
+            for (int row = 0; row < header.baseRows[i]; row++) {
+                long zone = in.readLong();
+                int day = in.readUnsignedByte();
+                partition.add(header.offenses[i], zone, day, in.readInt());
+            }
+        }
+        return partition;
+    }
+
+    /**
+     * The header of a partition file, which is all a reader needs to find the rows of an offense.
+     */
+    static class Header {
+        int month;
+        double cellSize;
+        String[] offenses;
+        long[] totals;
+        int[] baseStart;
+        int[] baseRows;
+        int[] dayStart;
+        int[] dayRows;
+        int[] zoneStart;
+        int[] zoneRows;
+        int baseRowsTotal;
+        int dayRowsTotal;
+        int zoneRowsTotal;
+        // the length of the header, which is the offset of the base section
+        long length;
+
+        static Header read(DataInputStream in) throws IOException {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readInt() != VERSION) {
+                throw new IOException("Not a crime cube partition of version " + VERSION);
+            }
+            Header header = new Header();
+            header.month = in.readInt();
+            header.cellSize = in.readDouble();
+            int offenses = in.readInt();
+            header.offenses = new String[offenses];
+            header.totals = new long[offenses];
+            header.baseStart = new int[offenses];
+            header.baseRows = new int[offenses];
+            header.dayStart = new int[offenses];
+            header.dayRows = new int[offenses];
+            header.zoneStart = new int[offenses];
+            header.zoneRows = new int[offenses];
+            long length = MAGIC.length + 4 + 4 + 8 + 4 + 3 * 4;
+            for (int i = 0; i < offenses; i++) {
+                header.offenses[i] = in.readUTF();
+                header.totals[i] = in.readLong();
+                header.baseStart[i] = in.readInt();
+                header.baseRows[i] = in.readInt();
+                header.dayStart[i] = in.readInt();
+                header.dayRows[i] = in.readInt();
+                header.zoneStart[i] = in.readInt();
+                header.zoneRows[i] = in.readInt();
+                // modified UTF-8 length prefix, the string, the total and six ints
+                length += 2 + utfLength(header.offenses[i]) + 8 + 6 * 4;
+            }
+            header.baseRowsTotal = in.readInt();
+            header.dayRowsTotal = in.readInt();
+            header.zoneRowsTotal = in.readInt();
+            header.length = length;
+            return header;
+        }
+
+        long dayOffset() {
+            return length + (long) baseRowsTotal * BASE_ROW;
+        }
+
+        long zoneOffset() {
+            return dayOffset() + (long) dayRowsTotal * DAY_ROW;
+        }
+
+        private static int utfLength(String value) {
+            int length = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                length += c >= 0x0001 && c <= 0x007f ? 1 : c <= 0x07ff ? 2 : 3;
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * This program merges a delta of new crimes, such as a daily file, into the rollup cube built by
+ * CrimeCubeBuilder. Only the monthly partitions the delta has crimes in are read, merged and rewritten;
+ * a partition is written to a temporary file first and then replaces the old one.
+ * Usage: CrimeCubeUpdate <cube dir> <delta file or dir>...
+ * The deltas are tab separated crime files and are added to the counts, so a delta must only be merged once.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.util.LineReader;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class CrimeCubeUpdate extends Configured implements Tool {
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = ToolRunner.run(new CrimeCubeUpdate(), args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        Path dir = new Path(args[0]);
+        FileSystem fs = dir.getFileSystem(getConf());
+        fs.mkdirs(dir);
+        CrimeGrid grid = new CrimeGrid(CrimeCube.cellSize(fs, dir));
+        Map<Integer, CrimeCubePartition> deltas = new TreeMap<>();
+        for (int i = 1; i < args.length; i++) {
+            Path delta = new Path(args[i]);
+            FileSystem deltaFs = delta.getFileSystem(getConf());
+            for (FileStatus status : deltaFs.listStatus(delta)) {
+                if (status.isFile() && !status.getPath().getName().startsWith("_") && !status.getPath().getName().startsWith(".")) {
+                    readDelta(deltaFs, status.getPath(), grid, deltas);
+                }
+            }
+        }
+        for (CrimeCubePartition delta : deltas.values()) {
+            merge(fs, dir, delta);
+        }
+        return 0;
+    }
+
+    /**
+     * Adds the crimes of a tab separated crime file to the delta partitions of their months.
+     */
+    private static void readDelta(FileSystem fs, Path file, CrimeGrid grid, Map<Integer, CrimeCubePartition> deltas) throws IOException {
+        CrimeRecord record = new CrimeRecord();
+        Text line = new Text();
+        try (FSDataInputStream in = fs.open(file)) {
+            LineReader reader = new LineReader(in);
+            while (reader.readLine(line) > 0) {
+                if (record.parse(line)) {
+                    // crimes without a valid date go to month 0, like in CrimeCubeBuilder
+                    int month = CrimeCubePartition.month(record.getDate());
+                    deltas.computeIfAbsent(month, m -> new CrimeCubePartition(m, grid.getCellSize()))
+                            .add(record.getOffense().trim(), grid.cell(record.getX(), record.getY()), CrimeCubePartition.day(record.getDate()), 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges a delta into the partition of its month, or creates the partition.
+     */
+    private static void merge(FileSystem fs, Path dir, CrimeCubePartition delta) throws IOException {
+        String name = CrimeCubePartition.fileName(delta.getMonth());
+        Path path = new Path(dir, name);
+        CrimeCubePartition partition = delta;
+        if (fs.exists(path)) {
+            try (FSDataInputStream in = fs.open(path)) {
+                partition = CrimeCubePartition.read(in);
+            }
+            partition.merge(delta);
+        }
+        Path temporary = new Path(dir, "_" + name + ".tmp");
+        try (FSDataOutputStream out = fs.create(temporary, true)) {
+            partition.write(out);
+        }
+        if (fs.exists(path) && !fs.delete(path, false)) {
+            throw new IOException("Could not replace " + path);
+        }
+        if (!fs.rename(temporary, path)) {
+            throw new IOException("Could not rename " + temporary + " to " + path);
+        }
+        System.out.println("Updated " + path);
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * The dimensions CrimeAggregation can group crimes by.
+ * The crime file has no police zone column, so ZONE is the cell of the CrimeGrid
+ * (crime.grid.cell.size feet, 500 by default), printed as column/row.
+ * Unknown dates give year and month 0 and unknown times give hour -1.
+ */
+package edu.cmu.andrew.student032;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public enum CrimeDimension {
+    OFFENSE(false, CrimeColumn.OFFENSE),
+    ZONE(true, CrimeColumn.X, CrimeColumn.Y),
+    TRACT(false, CrimeColumn.TRACT),
+    YEAR(true, CrimeColumn.DATE),
+    MONTH(true, CrimeColumn.DATE),
+    HOUR(true, CrimeColumn.HOUR);
+
+    private final boolean numeric;
+    private final CrimeColumn[] columns;
+
+    CrimeDimension(boolean numeric, CrimeColumn... columns) {
+        this.numeric = numeric;
+        this.columns = columns;
+    }
+
+    /**
+     * @return true if the values are numbers, which sort numerically
+     */
+    public boolean isNumeric() {
+        return numeric;
+    }
+
+    /**
+     * @return the columns the value is computed from
+     */
+    public CrimeColumn[] getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the value of a numeric dimension
+     */
+    public long number(CrimeRecord record, CrimeGrid grid) {
+        switch (this) {
+            case ZONE: return grid.cell(record.getX(), record.getY());
+            case YEAR: return record.getDate() / 10000;
+            case MONTH: return record.getDate() / 100 % 100;
+            case HOUR: return record.getHour();
+            default: throw new IllegalStateException(this + " is not numeric");
+        }
+    }
+
+    /**
+     * @return the value of a dimension that is not numeric
+     */
+    public String string(CrimeRecord record) {
+        switch (this) {
+            case OFFENSE: return record.getOffense().trim();
+            case TRACT: return record.getTract();
+            default: throw new IllegalStateException(this + " is numeric");
+        }
+    }
+
+    /**
+     * @return the value of a numeric dimension as it is printed
+     */
+    public String format(long number) {
+        if (this == ZONE) {
+            return number == CrimeGrid.NO_CELL ? "none" : (int) (number >> 32) + "/" + (int) number;
+        }
+        return Long.toString(number);
+    }
+
+    /**
+     * @return the value of any dimension as it is printed
+     */
+    public String value(CrimeRecord record, CrimeGrid grid) {
+        return numeric ? format(number(record, grid)) : string(record);
+    }
+
+    /**
+     * Parses a comma separated list of dimension names such as "offense,month".
+     * "*" stands for no dimension, which aggregates all crimes into one group.
+     */
+    public static CrimeDimension[] parse(String names) {
+        List<CrimeDimension> dimensions = new ArrayList<>();
+        for (String name : names.split(",")) {
+            if (!name.trim().isEmpty() && !name.trim().equals("*")) {
+                dimensions.add(valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        return dimensions.toArray(new CrimeDimension[0]);
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * A uniform grid over the X/Y coordinates of the crime data.
+ * Cells are squares of crime.grid.cell.size feet, and a cell id packs the column in the upper
+ * and the row in the lower 32 bits of a long. Records without coordinates are in NO_CELL.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configuration;
+
+import java.util.Arrays;
+
+public class CrimeGrid {
+    public static final String CELL_SIZE_KEY = "crime.grid.cell.size";
+    public static final double DEFAULT_CELL_SIZE = 500;
+    public static final long NO_CELL = Long.MIN_VALUE;
+
+    private final double cellSize;
+
+    public CrimeGrid(double cellSize) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    public static CrimeGrid fromConf(Configuration conf) {
+        return new CrimeGrid(conf.getDouble(CELL_SIZE_KEY, DEFAULT_CELL_SIZE));
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return the id of the cell containing the point, or NO_CELL if a coordinate is NaN
+     */
+    public long cell(double x, double y) {
+        if (Double.isNaN(x) || Double.isNaN(y)) {
+            return NO_CELL;
+        }
+        return cell((int) Math.floor(x / cellSize), (int) Math.floor(y / cellSize));
+    }
+
+    private static long cell(int column, int row) {
+        return ((long) column << 32) | (row & 0xffffffffL);
+    }
+
+    /**
+     * @return the number of cells of the square around a circle, which cells() checks one by one;
+     *         Long.MAX_VALUE if the square reaches past the columns or rows a cell id can hold
+     */
+    public long boundingCells(double centerX, double centerY, double radius) {
+        double columns = Math.floor((centerX + radius) / cellSize) - Math.floor((centerX - radius) / cellSize) + 1;
+        double rows = Math.floor((centerY + radius) / cellSize) - Math.floor((centerY - radius) / cellSize) + 1;
+        if (!inRange((centerX - radius) / cellSize) || !inRange((centerX + radius) / cellSize)
+                || !inRange((centerY - radius) / cellSize) || !inRange((centerY + radius) / cellSize)
+                || columns * rows >= Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return (long) columns * (long) rows;
+    }
+
+    private static boolean inRange(double index) {
+        return index >= Integer.MIN_VALUE && index < Integer.MAX_VALUE;
+    }
+
+    /**
+     * Finds the cells that overlap a circle.
+     * @param centerX the X coordinate of the center, in feet
+     * @param centerY the Y coordinate of the center, in feet
+     * @param radius the radius, in feet
+     * @return the sorted ids of the cells that overlap the circle
+     * @throws IllegalArgumentException if the circle covers too many cells to list them
+     */
+    public long[] cells(double centerX, double centerY, double radius) {
+        long boundingCells = boundingCells(centerX, centerY, radius);
+        if (boundingCells > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("A radius of " + radius + " feet covers too many cells of " + cellSize + " feet");
+        }
+        int minColumn = (int) Math.floor((centerX - radius) / cellSize);
+        int maxColumn = (int) Math.floor((centerX + radius) / cellSize);
+        int minRow = (int) Math.floor((centerY - radius) / cellSize);
+        int maxRow = (int) Math.floor((centerY + radius) / cellSize);
+        long[] cells = new long[(int) boundingCells];
+        int count = 0;
+        for (int column = minColumn; column <= maxColumn; column++) {
+            for (int row = minRow; row <= maxRow; row++) {
+                if (overlaps(column, row, centerX, centerY, radius)) {
+                    cells[count++] = cell(column, row);
+                }
+            }
+        }
+        long[] result = Arrays.copyOf(cells, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Finds the cells that overlap a circle among the cells that have records, so a large circle
+     * costs no more than the cells of the index, however many empty cells it covers.
+     * @param occupied the sorted ids of the cells that have records
+     * @return the sorted ids of cells that overlap the circle, with all the occupied ones among them
+     */
+    public long[] cells(double centerX, double centerY, double radius, long[] occupied) {
+        if (boundingCells(centerX, centerY, radius) <= occupied.length) {
+            return cells(centerX, centerY, radius);
+        }
+        long[] cells = new long[occupied.length];
+        int count = 0;
+        for (long cell : occupied) {
+            if (cell != NO_CELL && overlaps((int) (cell >> 32), (int) cell, centerX, centerY, radius)) {
+                cells[count++] = cell;
+            }
+        }
+        return Arrays.copyOf(cells, count);
+    }
+
+    private boolean overlaps(int column, int row, double centerX, double centerY, double radius) {
+        // distance from the center to the nearest point of the cell, 0 along an axis if the center is inside it
+        double dx = Math.max(0, Math.max(column * cellSize - centerX, centerX - (column + 1.0) * cellSize));
+        double dy = Math.max(0, Math.max(row * cellSize - centerY, centerY - (row + 1.0) * cellSize));
+        return dx * dx + dy * dy <= radius * radius;
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * The index of a columnar crime file written by CrimeGridOutputFormat.
+ * Every row group of such a file holds the records of a single grid cell, and the index maps
+ * each cell to the offsets of its row groups, so a radius query only reads the overlapping cells.
+ * The index of part-r-00000.crime is stored next to it as _part-r-00000.crime.idx; the leading
+ * underscore hides it from the input formats. It holds the magic bytes "CRIMEIDX", a version,
+ * the cell size of the grid and the (cell id, row group offset) pairs in file order.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CrimeGridIndex {
+    static final byte[] MAGIC = {'C', 'R', 'I', 'M', 'E', 'I', 'D', 'X'};
+    static final int VERSION = 1;
+    private static final long[] NONE = new long[0];
+
+    private final CrimeGrid grid;
+    private final Map<Long, long[]> rowGroups;
+    // the sorted cells that have row groups
+    private final long[] cells;
+
+    private CrimeGridIndex(CrimeGrid grid, Map<Long, long[]> rowGroups) {
+        this.grid = grid;
+        this.rowGroups = rowGroups;
+        this.cells = rowGroups.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    /**
+     * @return the path of the index of a columnar crime file
+     */
+    public static Path indexPath(Path dataFile) {
+        return new Path(dataFile.getParent(), "_" + dataFile.getName() + ".idx");
+    }
+
+    /**
+     * Reads the index of a columnar crime file.
+     * @return the index, or null if the file has none
+     */
+    public static CrimeGridIndex read(FileSystem fs, Path dataFile) throws IOException {
+        Path path = indexPath(dataFile);
+        if (!fs.exists(path)) {
+            return null;
+        }
+        try (FSDataInputStream in = fs.open(path)) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readInt() != VERSION) {
+                throw new IOException(path + " is not a crime grid index of version " + VERSION);
+            }
+            CrimeGrid grid = new CrimeGrid(in.readDouble());
+            int entries = in.readInt();
+            Map<Long, List<Long>> offsets = new HashMap<>();
+            for (int i = 0; i < entries; i++) {
+                long cell = in.readLong();
+                offsets.computeIfAbsent(cell, c -> new ArrayList<>()).add(in.readLong());
+            }
+            Map<Long, long[]> rowGroups = new HashMap<>(offsets.size() * 2);
+            for (Map.Entry<Long, List<Long>> entry : offsets.entrySet()) {
+                rowGroups.put(entry.getKey(), entry.getValue().stream().mapToLong(Long::longValue).toArray());
+            }
+            return new CrimeGridIndex(grid, rowGroups);
+        }
+    }
+
+    /**
+     * Writes an index.
+     * @param out the stream of the index file
+     * @param grid the grid of the data file
+     * @param cells the cell of each row group
+     * @param offsets the offset of each row group
+     * @param entries the number of row groups
+     */
+    static void write(DataOutputStream out, CrimeGrid grid, long[] cells, long[] offsets, int entries) throws IOException {
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeDouble(grid.getCellSize());
+        out.writeInt(entries);
+        for (int i = 0; i < entries; i++) {
+            out.writeLong(cells[i]);
+            out.writeLong(offsets[i]);
+        }
+    }
+
+    public CrimeGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return the sorted offsets of the row groups that can hold records matching the query
+     */
+    public long[] rowGroups(CrimeRadiusQuery query) {
+        long[] result = NONE;
+        int count = 0;
+        for (long cell : query.cells(grid, cells)) {
+            long[] cellOffsets = rowGroups.get(cell);
+            if (cellOffsets == null) {
+                continue;
+            }
+            if (count + cellOffsets.length > result.length) {
+                result = Arrays.copyOf(result, Math.max(2 * result.length, count + cellOffsets.length));
+            }
+            System.arraycopy(cellOffsets, 0, result, count, cellOffsets.length);
+            count += cellOffsets.length;
+        }
+        long[] sorted = Arrays.copyOf(result, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
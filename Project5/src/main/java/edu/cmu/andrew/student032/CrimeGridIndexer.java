@@ -0,0 +1,66 @@
+/**
+ * This MapReduce program builds the spatial index of the crime data.
+ * It groups the records by their grid cell (crime.grid.cell.size feet, 500 by default) and writes
+ * them with CrimeGridOutputFormat: a columnar crime file with one row group per cell and an index
+ * of the cells. Radius queries on its output, such as AggravatedAssaults with crime.input.columnar=true
+ * or CrimeRadiusSearch, only read the cells that overlap the circle.
+ * The input is the tab separated crime file, or the columnar format when crime.input.columnar is true.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.io.IOException;
+
+public class CrimeGridIndexer extends Configured implements Tool {
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = ToolRunner.run(new CrimeGridIndexer(), args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        Job job = Job.getInstance(getConf(), "Crime grid index");
+        job.setJarByClass(getClass());
+
+        job.setOutputKeyClass(LongWritable.class);
+        job.setOutputValueClass(CrimeRecord.class);
+
+        job.setMapperClass(GridMapper.class);
+        job.setReducerClass(Reducer.class);
+
+        job.setOutputFormatClass(CrimeGridOutputFormat.class);
+
+        CrimeRecordMapper.setInput(job, new Path(args[0]));
+        FileOutputFormat.setOutputPath(job, new Path(args[1]));
+
+        return job.waitForCompletion(true) ? 0 : 1;
+    }
+
+    /**
+     * Keys every crime record by its grid cell.
+     */
+    public static class GridMapper extends CrimeRecordMapper<LongWritable, CrimeRecord> {
+        private final LongWritable cell = new LongWritable();
+        private CrimeGrid grid;
+
+        @Override
+        protected void setup(Context context) {
+            grid = CrimeGrid.fromConf(context.getConfiguration());
+        }
+
+        @Override
+        protected void process(CrimeRecord record, Context context) throws IOException, InterruptedException {
+            cell.set(grid.cell(record.getX(), record.getY()));
+            context.write(cell, record);
+        }
+    }
+}
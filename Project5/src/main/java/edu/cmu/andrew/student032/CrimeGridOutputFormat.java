@@ -0,0 +1,79 @@
+/**
+ * This output format writes crime records keyed by their grid cell in the columnar crime format,
+ * starting a new row group whenever the cell changes, and writes a CrimeGridIndex next to
+ * every file. The records must arrive grouped by cell, as they do from a reducer keyed by cell.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class CrimeGridOutputFormat extends FileOutputFormat<LongWritable, CrimeRecord> {
+
+    @Override
+    public RecordWriter<LongWritable, CrimeRecord> getRecordWriter(TaskAttemptContext context) throws IOException {
+        Configuration conf = context.getConfiguration();
+        Path file = getDefaultWorkFile(context, CrimeColumnarOutputFormat.EXTENSION);
+        FileSystem fs = file.getFileSystem(conf);
+        FSDataOutputStream out = fs.create(file, false);
+        int rowGroupSize = conf.getInt(CrimeColumnarOutputFormat.ROW_GROUP_SIZE_KEY, CrimeColumnarOutputFormat.DEFAULT_ROW_GROUP_SIZE);
+        return new GridRecordWriter(new CrimeColumnarOutputFormat.ColumnarRecordWriter(out, rowGroupSize),
+                fs, CrimeGridIndex.indexPath(file), CrimeGrid.fromConf(conf));
+    }
+
+    /**
+     * Writes the records through a ColumnarRecordWriter and remembers the cell and offset of every row group.
+     */
+    static class GridRecordWriter extends RecordWriter<LongWritable, CrimeRecord> {
+        private final CrimeColumnarOutputFormat.ColumnarRecordWriter columnar;
+        private final FileSystem fs;
+        private final Path indexFile;
+        private final CrimeGrid grid;
+        private long[] cells = new long[1024];
+        private long[] offsets = new long[1024];
+        private int rowGroups;
+        private long currentCell;
+
+        GridRecordWriter(CrimeColumnarOutputFormat.ColumnarRecordWriter columnar, FileSystem fs, Path indexFile, CrimeGrid grid) {
+            this.columnar = columnar;
+            this.fs = fs;
+            this.indexFile = indexFile;
+            this.grid = grid;
+        }
+
+        @Override
+        public void write(LongWritable cell, CrimeRecord record) throws IOException {
+            if (columnar.bufferedRows() > 0 && cell.get() != currentCell) {
+                columnar.writeRowGroup();
+            }
+            if (columnar.bufferedRows() == 0) {
+                if (rowGroups == cells.length) {
+                    cells = Arrays.copyOf(cells, 2 * rowGroups);
+                    offsets = Arrays.copyOf(offsets, 2 * rowGroups);
+                }
+                cells[rowGroups] = cell.get();
+                offsets[rowGroups] = columnar.position();
+                rowGroups++;
+                currentCell = cell.get();
+            }
+            columnar.write(null, record);
+        }
+
+        @Override
+        public void close(TaskAttemptContext context) throws IOException {
+            columnar.close(context);
+            try (FSDataOutputStream out = fs.create(indexFile, false)) {
+                CrimeGridIndex.write(out, grid, cells, offsets, rowGroups);
+            }
+        }
+    }
+}
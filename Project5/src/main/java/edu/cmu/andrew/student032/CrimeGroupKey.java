@@ -0,0 +1,124 @@
+/**
+ * The composite key of CrimeAggregation: the index of a grouping and the values of its dimensions.
+ * Numeric dimensions are stored and compared as numbers, the others as strings.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.io.WritableComparable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class CrimeGroupKey implements WritableComparable<CrimeGroupKey> {
+    private static final CrimeDimension[] DIMENSIONS = CrimeDimension.values();
+
+    private int grouping;
+    private CrimeDimension[] dimensions = new CrimeDimension[0];
+    private long[] numbers = new long[0];
+    private String[] strings = new String[0];
+
+    /**
+     * Sets the key to the group of a record.
+     * @param grouping the index of the grouping
+     * @param groupDimensions the dimensions of the grouping
+     * @param record the crime record
+     * @param grid the grid of the ZONE dimension
+     */
+    public void set(int grouping, CrimeDimension[] groupDimensions, CrimeRecord record, CrimeGrid grid) {
+        resize(grouping, groupDimensions.length);
+        for (int i = 0; i < groupDimensions.length; i++) {
+            dimensions[i] = groupDimensions[i];
+            if (groupDimensions[i].isNumeric()) {
+                numbers[i] = groupDimensions[i].number(record, grid);
+            } else {
+                strings[i] = groupDimensions[i].string(record);
+            }
+        }
+    }
+
+    private void resize(int grouping, int size) {
+        this.grouping = grouping;
+        if (dimensions.length != size) {
+            dimensions = new CrimeDimension[size];
+            numbers = new long[size];
+            strings = new String[size];
+        }
+    }
+
+    public int getGrouping() {
+        return grouping;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(grouping);
+        out.writeByte(dimensions.length);
+        for (int i = 0; i < dimensions.length; i++) {
+            out.writeByte(dimensions[i].ordinal());
+            if (dimensions[i].isNumeric()) {
+                out.writeLong(numbers[i]);
+            } else {
+                out.writeUTF(strings[i]);
+            }
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        int readGrouping = in.readUnsignedByte();
+        resize(readGrouping, in.readUnsignedByte());
+        for (int i = 0; i < dimensions.length; i++) {
+            dimensions[i] = DIMENSIONS[in.readUnsignedByte()];
+            if (dimensions[i].isNumeric()) {
+                numbers[i] = in.readLong();
+            } else {
+                strings[i] = in.readUTF();
+            }
+        }
+    }
+
+    @Override
+    public int compareTo(CrimeGroupKey other) {
+        int result = Integer.compare(grouping, other.grouping);
+        if (result == 0) {
+            result = Integer.compare(dimensions.length, other.dimensions.length);
+        }
+        for (int i = 0; result == 0 && i < dimensions.length; i++) {
+            result = dimensions[i].compareTo(other.dimensions[i]);
+            if (result == 0) {
+                result = dimensions[i].isNumeric() ? Long.compare(numbers[i], other.numbers[i]) : strings[i].compareTo(other.strings[i]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CrimeGroupKey && compareTo((CrimeGroupKey) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = grouping;
+        for (int i = 0; i < dimensions.length; i++) {
+            hash = hash * 31 + (dimensions[i].isNumeric() ? Long.hashCode(numbers[i]) : strings[i].hashCode());
+        }
+        return hash;
+    }
+
+    /**
+     * @return the values of the dimensions separated by tabs
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < dimensions.length; i++) {
+            if (i > 0) {
+                result.append('\t');
+            }
+            result.append(dimensions[i].isNumeric() ? dimensions[i].format(numbers[i]) : strings[i]);
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * The location of a crime in degrees, the compact record the KML jobs send from the mappers
+ * to KmlOutputFormat instead of rendered placemarks.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class CrimePoint implements Writable {
+    private double lon;
+    private double lat;
+
+    public CrimePoint() {
+    }
+
+    public CrimePoint(double lon, double lat) {
+        set(lon, lat);
+    }
+
+    public void set(double lon, double lat) {
+        this.lon = lon;
+        this.lat = lat;
+    }
+
+    public double getLon() {
+        return lon;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeDouble(lon);
+        out.writeDouble(lat);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        lon = in.readDouble();
+        lat = in.readDouble();
+    }
+
+    @Override
+    public String toString() {
+        return lon + "," + lat;
+    }
+}
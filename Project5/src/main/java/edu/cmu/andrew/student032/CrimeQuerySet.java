@@ -0,0 +1,166 @@
+/**
+ * A set of radius queries with a grid index over their circles, used to match every crime record
+ * against thousands of queries at once. Each query is added to the grid cells its circle overlaps,
+ * so a record is only checked against the queries of its own cell. A query whose circle covers more
+ * than WIDE_QUERY_CELLS cells is not indexed but checked against every record, like a full scan.
+ * The queries are read from a text file with one query per line:
+ * id, x, y, radius in meters and an optional offense, separated by tabs.
+ * Without an offense the query uses crime.query.offense (aggravated assault by default).
+ * Empty lines and lines starting with # are skipped.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.JobContext;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class CrimeQuerySet {
+    // Name of the queries file in the distributed cache and of its link in the task directory
+    public static final String CACHE_LINK = "crime-queries";
+    public static final String CELL_SIZE_KEY = "crime.batch.cell.size";
+    public static final double DEFAULT_CELL_SIZE = 1000;
+    // above this many cells a query is checked against every record instead of being indexed
+    static final long WIDE_QUERY_CELLS = 1 << 16;
+    private static final int[] NONE = new int[0];
+
+    private final List<String> ids = new ArrayList<>();
+    private final List<CrimeRadiusQuery> queries = new ArrayList<>();
+    private final CrimeGrid grid;
+    private final Map<Long, int[]> cells = new HashMap<>();
+    private int[] wideQueries = NONE;
+
+    public CrimeQuerySet(CrimeGrid grid) {
+        this.grid = grid;
+    }
+
+    /**
+     * Reads the queries file of a job from the distributed cache.
+     * @param context the context of the task
+     * @return the queries of the job
+     */
+    public static CrimeQuerySet fromCache(JobContext context) throws IOException {
+        Configuration conf = context.getConfiguration();
+        URI[] files = context.getCacheFiles();
+        if (files == null) {
+            throw new IOException("No queries file in the distributed cache");
+        }
+        for (URI uri : files) {
+            if (CACHE_LINK.equals(uri.getFragment())) {
+                File link = new File(CACHE_LINK);
+                // the local job runner does not create the link, so fall back to the file itself
+                Path path = new Path(uri.getScheme(), uri.getAuthority(), uri.getPath());
+                try (InputStream in = link.exists() ? new FileInputStream(link) : path.getFileSystem(conf).open(path)) {
+                    return read(in, conf);
+                }
+            }
+        }
+        throw new IOException("No queries file in the distributed cache");
+    }
+
+    /**
+     * Reads a queries file.
+     * @param in the queries file
+     * @param conf the configuration with the default offense and the cell size of the grid
+     */
+    public static CrimeQuerySet read(InputStream in, Configuration conf) throws IOException {
+        CrimeQuerySet set = new CrimeQuerySet(new CrimeGrid(conf.getDouble(CELL_SIZE_KEY, DEFAULT_CELL_SIZE)));
+        String defaultOffense = conf.get(CrimeRadiusQuery.OFFENSE_KEY, CrimeRadiusQuery.DEFAULT_OFFENSE);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            if (fields.length < 4) {
+                throw new IOException("Line " + lineNumber + " of the queries file is not id, x, y, radius [, offense]: " + line);
+            }
+            try {
+                set.add(fields[0].trim(), new CrimeRadiusQuery(Double.parseDouble(fields[1].trim()), Double.parseDouble(fields[2].trim()),
+                        Double.parseDouble(fields[3].trim()), fields.length > 4 ? fields[4] : defaultOffense, fields[0].trim()));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNumber + " of the queries file has a bad number: " + line, e);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Adds a query and indexes it in the cells its circle overlaps.
+     */
+    public void add(String id, CrimeRadiusQuery query) {
+        int index = queries.size();
+        ids.add(id);
+        queries.add(query);
+        if (query.boundingCells(grid) > WIDE_QUERY_CELLS) {
+            wideQueries = append(wideQueries, index);
+            return;
+        }
+        for (long cell : query.cells(grid)) {
+            int[] cellQueries = cells.get(cell);
+            cells.put(cell, cellQueries == null ? new int[]{index} : append(cellQueries, index));
+        }
+    }
+
+    private static int[] append(int[] indexes, int index) {
+        int[] result = Arrays.copyOf(indexes, indexes.length + 1);
+        result[indexes.length] = index;
+        return result;
+    }
+
+    /**
+     * Adds one to the count of every query the record matches.
+     * @param record the crime record
+     * @param counts the counts, indexed like the queries
+     * @return the number of queries the record matches
+     */
+    public int count(CrimeRecord record, long[] counts) {
+        int[] candidates = cells.get(grid.cell(record.getX(), record.getY()));
+        if (candidates == null && wideQueries.length == 0) {
+            return 0;
+        }
+        // lower cased once for all the candidate queries
+        String offense = record.getOffense().toLowerCase(Locale.ROOT);
+        return count(record, offense, candidates == null ? NONE : candidates, counts) + count(record, offense, wideQueries, counts);
+    }
+
+    private int count(CrimeRecord record, String offense, int[] candidates, long[] counts) {
+        int hits = 0;
+        for (int index : candidates) {
+            if (queries.get(index).matches(record, offense)) {
+                counts[index]++;
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    public int size() {
+        return queries.size();
+    }
+
+    public String getId(int index) {
+        return ids.get(index);
+    }
+
+    public CrimeRadiusQuery getQuery(int index) {
+        return queries.get(index);
+    }
+}
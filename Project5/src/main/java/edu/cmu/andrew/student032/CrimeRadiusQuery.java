@@ -0,0 +1,138 @@
+/**
+ * A query for the crimes of one offense within a radius of a point.
+ * The query is read from the configuration, so the jobs can be run for any place with e.g.
+ * -D crime.query.x=1354326.897 -D crime.query.y=411447.7828 -D crime.query.radius=350 -D crime.query.offense="aggravated assault"
+ * It defaults to the aggravated assaults within 350 meters of 3803 Forbes Avenue in Oakland.
+ * An offense of "*" matches all offenses.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configuration;
+
+import java.util.Locale;
+
+public class CrimeRadiusQuery {
+    public static final String X_KEY = "crime.query.x";
+    public static final String Y_KEY = "crime.query.y";
+    public static final String RADIUS_KEY = "crime.query.radius";
+    public static final String OFFENSE_KEY = "crime.query.offense";
+    public static final String PLACE_KEY = "crime.query.place";
+    public static final double DEFAULT_X = 1354326.897;
+    public static final double DEFAULT_Y = 411447.7828;
+    public static final double DEFAULT_RADIUS = 350;
+    public static final String DEFAULT_OFFENSE = "aggravated assault";
+    public static final String DEFAULT_PLACE = "3803 Forbes Avenue in Oakland";
+    private static final double METERS_PER_FOOT = 0.3048;
+
+    private final double x;
+    private final double y;
+    private final double radius;
+    private final String offense;
+    private final String place;
+
+    /**
+     * @param x the X coordinate of the center, in feet
+     * @param y the Y coordinate of the center, in feet
+     * @param radius the radius in meters
+     * @param offense the text the offense must contain, in any case; empty or "*" for all offenses
+     * @param place the name of the center, used in descriptions
+     * @throws IllegalArgumentException if the center is not finite or the radius is not finite and positive
+     */
+    public CrimeRadiusQuery(double x, double y, double radius, String offense, String place) {
+        if (!Double.isFinite(x) || !Double.isFinite(y)) {
+            throw new IllegalArgumentException("The center must be finite: " + x + ", " + y);
+        }
+        if (!(radius > 0) || Double.isInfinite(radius)) {
+            throw new IllegalArgumentException("The radius must be finite and positive: " + radius);
+        }
+        this.x = x;
+        this.y = y;
+        this.radius = radius;
+        this.offense = offense.trim().equals("*") ? "" : offense.toLowerCase(Locale.ROOT);
+        this.place = place;
+    }
+
+    public static CrimeRadiusQuery fromConf(Configuration conf) {
+        return new CrimeRadiusQuery(conf.getDouble(X_KEY, DEFAULT_X), conf.getDouble(Y_KEY, DEFAULT_Y),
+                conf.getDouble(RADIUS_KEY, DEFAULT_RADIUS), conf.get(OFFENSE_KEY, DEFAULT_OFFENSE),
+                conf.get(PLACE_KEY, DEFAULT_PLACE));
+    }
+
+    public void toConf(Configuration conf) {
+        conf.setDouble(X_KEY, x);
+        conf.setDouble(Y_KEY, y);
+        conf.setDouble(RADIUS_KEY, radius);
+        conf.set(OFFENSE_KEY, offense.isEmpty() ? "*" : offense);
+        conf.set(PLACE_KEY, place);
+    }
+
+    /**
+     * @return true if the record is of the offense and strictly within the radius
+     */
+    public boolean matches(CrimeRecord record) {
+        return matchesOffense(record.getOffense()) && record.distanceInMeters(x, y) < radius;
+    }
+
+    /**
+     * Like matches(record), for callers that check a record against many queries and lower case
+     * its offense only once.
+     * @param lowerCaseOffense the offense of the record, lower cased with Locale.ROOT
+     */
+    public boolean matches(CrimeRecord record, String lowerCaseOffense) {
+        return matchesLowerCaseOffense(lowerCaseOffense) && record.distanceInMeters(x, y) < radius;
+    }
+
+    public boolean matchesOffense(String recordOffense) {
+        return offense.isEmpty() || recordOffense.toLowerCase(Locale.ROOT).contains(offense);
+    }
+
+    private boolean matchesLowerCaseOffense(String lowerCaseOffense) {
+        return offense.isEmpty() || lowerCaseOffense.contains(offense);
+    }
+
+    /**
+     * @return the sorted ids of the grid cells that can contain matching records
+     */
+    public long[] cells(CrimeGrid grid) {
+        return grid.cells(x, y, radius / METERS_PER_FOOT);
+    }
+
+    /**
+     * @param occupied the sorted ids of the cells that have records
+     * @return the sorted ids of the grid cells that can contain matching records, see CrimeGrid.cells
+     */
+    public long[] cells(CrimeGrid grid, long[] occupied) {
+        return grid.cells(x, y, radius / METERS_PER_FOOT, occupied);
+    }
+
+    /**
+     * @return the number of cells cells(grid) checks, see CrimeGrid.boundingCells
+     */
+    public long boundingCells(CrimeGrid grid) {
+        return grid.boundingCells(x, y, radius / METERS_PER_FOOT);
+    }
+
+    /**
+     * @return a description like "Occurred within 350 meters of 3803 Forbes Avenue in Oakland"
+     */
+    public String describe() {
+        String meters = radius == Math.rint(radius) ? Long.toString((long) radius) : Double.toString(radius);
+        return "Occurred within " + meters + " meters of " + place;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
+    public String getOffense() {
+        return offense;
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * This program answers radius queries interactively from the output of CrimeGridIndexer,
+ * without running a MapReduce job per query. It loads the grid indexes once, keeps the data
+ * files open, and for every query reads only the row groups of the cells overlapping the circle.
+ * Usage: CrimeRadiusSearch <indexed dir> [x y radius [offense]]
+ * Without a query on the command line it reads one query per line from standard input,
+ * with the radius in meters and an optional offense (all offenses if missing),
+ * and prints the number of matching crimes for each.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+public class CrimeRadiusSearch extends Configured implements Tool, Closeable {
+    private static final EnumSet<CrimeColumn> COLUMNS = EnumSet.of(CrimeColumn.X, CrimeColumn.Y, CrimeColumn.OFFENSE);
+
+    private final List<IndexedFile> files = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = ToolRunner.run(new CrimeRadiusSearch(), args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        try {
+            open(new Path(args[0]));
+            if (args.length > 1) {
+                System.out.println(count(parseQuery(Arrays.copyOfRange(args, 1, args.length))));
+                return 0;
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    System.out.println(count(parseQuery(line.trim().split("\\s+"))));
+                }
+            }
+            return 0;
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Parses "x y radius [offense]", where the offense may contain spaces.
+     */
+    private static CrimeRadiusQuery parseQuery(String[] fields) {
+        if (fields.length < 3) {
+            throw new IllegalArgumentException("Expected x y radius [offense], got " + String.join(" ", fields));
+        }
+        String offense = String.join(" ", Arrays.copyOfRange(fields, 3, fields.length));
+        return new CrimeRadiusQuery(Double.parseDouble(fields[0]), Double.parseDouble(fields[1]),
+                Double.parseDouble(fields[2]), offense, "");
+    }
+
+    /**
+     * Loads the indexes of the columnar crime files in a directory and opens the files.
+     * @param dir the output directory of CrimeGridIndexer
+     */
+    public void open(Path dir) throws IOException {
+        FileSystem fs = dir.getFileSystem(getConf());
+        for (FileStatus status : fs.listStatus(dir)) {
+            Path file = status.getPath();
+            if (!file.getName().endsWith(CrimeColumnarOutputFormat.EXTENSION)) {
+                continue;
+            }
+            CrimeGridIndex index = CrimeGridIndex.read(fs, file);
+            if (index == null) {
+                throw new IOException(file + " has no grid index, build it with CrimeGridIndexer");
+            }
+            FSDataInputStream in = fs.open(file);
+            CrimeColumnarInputFormat.ColumnarRecordReader.readHeader(in, file);
+            files.add(new IndexedFile(index, in, status.getLen()));
+        }
+    }
+
+    /**
+     * @return the number of crimes matching the query
+     */
+    public long count(CrimeRadiusQuery query) throws IOException {
+        long count = 0;
+        for (IndexedFile file : files) {
+            file.reader.open(file.in, file.length, COLUMNS, file.index.rowGroups(query));
+            while (file.reader.nextKeyValue()) {
+                if (query.matches(file.reader.getCurrentValue())) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (IndexedFile file : files) {
+            file.in.close();
+        }
+        files.clear();
+    }
+
+    private static class IndexedFile {
+        private final CrimeGridIndex index;
+        private final FSDataInputStream in;
+        private final long length;
+        private final CrimeColumnarInputFormat.ColumnarRecordReader reader = new CrimeColumnarInputFormat.ColumnarRecordReader();
+
+        IndexedFile(CrimeGridIndex index, FSDataInputStream in, long length) {
+            this.index = index;
+            this.in = in;
+            this.length = length;
+        }
+    }
+}
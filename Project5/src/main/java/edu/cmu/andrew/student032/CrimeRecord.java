@@ -0,0 +1,222 @@
+/**
+ * CrimeRecord is one row of the Pittsburgh crime data, with typed fields.
+ * The tab separated crime file has the columns
+ * X, Y, Time, Street, Offense, Date, Tract, Lat, Lon
+ * where X and Y are state plane coordinates in feet and Lat and Lon are degrees.
+ * A record is either parsed from a line of that file or read from the columnar format,
+ * and the crime jobs reuse one instance for every input record.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class CrimeRecord implements Writable {
+    public static final int X_COLUMN = 0;
+    public static final int Y_COLUMN = 1;
+    public static final int TIME_COLUMN = 2;
+    public static final int OFFENSE_COLUMN = 4;
+    public static final int DATE_COLUMN = 5;
+    public static final int TRACT_COLUMN = 6;
+    public static final int LAT_COLUMN = 7;
+    public static final int LON_COLUMN = 8;
+
+    private double x;
+    private double y;
+    private double lat;
+    private double lon;
+    private String offense = "";
+    private String tract = "";
+    // yyyymmdd, or 0 when unknown
+    private int date;
+    // 0-23, or -1 when unknown
+    private int hour = -1;
+
+    /**
+     * Parses a line of the tab separated crime file into this record.
+     * Lines starting with "X" (the header) and lines with fewer than 5 columns are skipped.
+     * Coordinates that are missing or cannot be parsed become NaN.
+     * @param line the line to be parsed
+     * @return false if the line is not a crime record
+     */
+    public boolean parse(Text line) {
+        return parse(line.toString());
+    }
+
+    /**
+     * Parses a line of the tab separated crime file that was read without Hadoop, see parse(Text).
+     */
+    public boolean parse(String textLine) {
+        if (textLine.startsWith("X")) {
+            return false;
+        }
+        String[] data = textLine.split("\t");
+        if (data.length <= OFFENSE_COLUMN) {
+            return false;
+        }
+        x = parseDouble(data, X_COLUMN);
+        y = parseDouble(data, Y_COLUMN);
+        lat = parseDouble(data, LAT_COLUMN);
+        lon = parseDouble(data, LON_COLUMN);
+        offense = data[OFFENSE_COLUMN];
+        tract = data.length > TRACT_COLUMN ? data[TRACT_COLUMN].trim() : "";
+        date = data.length > DATE_COLUMN ? parseDate(data[DATE_COLUMN]) : 0;
+        hour = parseHour(data[TIME_COLUMN]);
+        return true;
+    }
+
+    private static double parseDouble(String[] data, int column) {
+        if (column >= data.length) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(data[column].trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Parses dates like 2006-01-31 or 01/31/2006, optionally followed by a time, into yyyymmdd.
+     */
+    static int parseDate(String value) {
+        String date = value.trim();
+        int end = date.indexOf('T') >= 0 ? date.indexOf('T') : date.indexOf(' ');
+        if (end >= 0) {
+            date = date.substring(0, end);
+        }
+        try {
+            if (date.indexOf('-') > 0) {
+                String[] parts = date.split("-");
+                return Integer.parseInt(parts[0]) * 10000 + Integer.parseInt(parts[1]) * 100 + Integer.parseInt(parts[2]);
+            }
+            if (date.indexOf('/') > 0) {
+                String[] parts = date.split("/");
+                int year = Integer.parseInt(parts[2]);
+                if (year < 100) {
+                    year += 2000;
+                }
+                return year * 10000 + Integer.parseInt(parts[0]) * 100 + Integer.parseInt(parts[1]);
+            }
+        } catch (RuntimeException e) {
+            return 0;
+        }
+        return 0;
+    }
+
+    /**
+     * Parses the hour of times like 13:45 or 1345.
+     */
+    static int parseHour(String value) {
+        String time = value.trim();
+        try {
+            int colon = time.indexOf(':');
+            int hour = colon >= 0 ? Integer.parseInt(time.substring(0, colon)) : Integer.parseInt(time) / 100;
+            return hour >= 0 && hour < 24 ? hour : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Calculates the distance to a point of the X/Y coordinate system with the Pythagorean theorem.
+     * @param centerX the X coordinate of the point, in feet
+     * @param centerY the Y coordinate of the point, in feet
+     * @return the distance in meters
+     */
+    public double distanceInMeters(double centerX, double centerY) {
+        return Math.sqrt(Math.pow(x - centerX, 2) + Math.pow(y - centerY, 2)) * 0.3048;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public void setX(double x) {
+        this.x = x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public void setY(double y) {
+        this.y = y;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public void setLat(double lat) {
+        this.lat = lat;
+    }
+
+    public double getLon() {
+        return lon;
+    }
+
+    public void setLon(double lon) {
+        this.lon = lon;
+    }
+
+    public String getOffense() {
+        return offense;
+    }
+
+    public void setOffense(String offense) {
+        this.offense = offense;
+    }
+
+    public String getTract() {
+        return tract;
+    }
+
+    public void setTract(String tract) {
+        this.tract = tract;
+    }
+
+    public int getDate() {
+        return date;
+    }
+
+    public void setDate(int date) {
+        this.date = date;
+    }
+
+    public int getHour() {
+        return hour;
+    }
+
+    public void setHour(int hour) {
+        this.hour = hour;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeDouble(x);
+        out.writeDouble(y);
+        out.writeDouble(lat);
+        out.writeDouble(lon);
+        out.writeUTF(offense);
+        out.writeUTF(tract);
+        out.writeInt(date);
+        out.writeByte(hour);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        x = in.readDouble();
+        y = in.readDouble();
+        lat = in.readDouble();
+        lon = in.readDouble();
+        offense = in.readUTF();
+        tract = in.readUTF();
+        date = in.readInt();
+        hour = in.readByte();
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Base class for the mappers of the crime jobs.
+ * It accepts both lines of the tab separated crime file and records of the columnar format,
+ * and hands every crime record to process(). Jobs call setInput() to pick the input format:
+ * the columnar format when crime.input.columnar is true, the text file otherwise.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+
+import java.io.IOException;
+
+public abstract class CrimeRecordMapper<KEYOUT, VALUEOUT> extends Mapper<Object, Object, KEYOUT, VALUEOUT> {
+    public static final String COLUMNAR_INPUT_KEY = "crime.input.columnar";
+
+    private final CrimeRecord parsed = new CrimeRecord();
+
+    /**
+     * Sets the input path and format of a crime job.
+     * @param job the job to be configured
+     * @param input the tab separated crime file, or the output of CrimeColumnarConverter
+     * @param columns the columns the mapper uses, only these are read from the columnar format
+     */
+    public static void setInput(Job job, Path input, CrimeColumn... columns) throws IOException {
+        if (job.getConfiguration().getBoolean(COLUMNAR_INPUT_KEY, false)) {
+            job.setInputFormatClass(CrimeColumnarInputFormat.class);
+            CrimeColumnarInputFormat.setColumns(job, columns);
+        } else {
+            job.setInputFormatClass(TextInputFormat.class);
+        }
+        FileInputFormat.setInputPaths(job, input);
+    }
+
+    @Override
+    public void map(Object key, Object value, Context context) throws IOException, InterruptedException {
+        if (value instanceof CrimeRecord) {
+            process((CrimeRecord) value, context);
+        } else if (parsed.parse((Text) value)) {
+            process(parsed, context);
+        }
+    }
+
+    /**
+     * Processes one crime record. The record is reused, so it must not be kept after the call.
+     * @param record the crime record
+     * @param context the context to write the output to
+     */
+    protected abstract void process(CrimeRecord record, Context context) throws IOException, InterruptedException;
+}
@@ -0,0 +1,101 @@
+/**
+ * This MapReduce program exports a crime layer as pre-rendered map tiles for web map clients.
+ * Every crime whose offense matches crime.query.offense (aggravated assault by default, "*" for all)
+ * is placed in one tile per zoom level from crime.tiles.min.zoom to crime.tiles.max.zoom
+ * (10 to 16 by default). Crimes at the same pixel of a tile (crime.tiles.extent pixels per side,
+ * 4096 by default) are merged into one point with a count, by the combiner and the reducer.
+ * The tiles are written by CrimeTileOutputFormat as <output>/<zoom>/<x>/<y>.json.
+ * The input is the tab separated crime file, or the columnar format when crime.input.columnar is true.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.reduce.LongSumReducer;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.io.IOException;
+
+public class CrimeTileExport extends Configured implements Tool {
+    public static final String MIN_ZOOM_KEY = "crime.tiles.min.zoom";
+    public static final String MAX_ZOOM_KEY = "crime.tiles.max.zoom";
+    public static final String EXTENT_KEY = "crime.tiles.extent";
+    public static final int DEFAULT_MIN_ZOOM = 10;
+    public static final int DEFAULT_MAX_ZOOM = 16;
+    public static final int DEFAULT_EXTENT = 4096;
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = ToolRunner.run(new CrimeTileExport(), args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        Job job = Job.getInstance(getConf(), "Crime tile export");
+        job.setJarByClass(getClass());
+
+        job.setOutputKeyClass(CrimeTileKey.class);
+        job.setOutputValueClass(LongWritable.class);
+
+        job.setMapperClass(TileMapper.class);
+        job.setCombinerClass(LongSumReducer.class);
+        job.setReducerClass(LongSumReducer.class);
+        job.setPartitionerClass(TilePartitioner.class);
+
+        job.setOutputFormatClass(CrimeTileOutputFormat.class);
+
+        CrimeRecordMapper.setInput(job, new Path(args[0]), CrimeColumn.OFFENSE, CrimeColumn.LAT, CrimeColumn.LON);
+        FileOutputFormat.setOutputPath(job, new Path(args[1]));
+
+        return job.waitForCompletion(true) ? 0 : 1;
+    }
+
+    /**
+     * Writes a count of one for the tile and pixel of the crime at every zoom level.
+     */
+    public static class TileMapper extends CrimeRecordMapper<CrimeTileKey, LongWritable> {
+        private static final LongWritable ONE = new LongWritable(1);
+        private final CrimeTileKey key = new CrimeTileKey();
+        private CrimeRadiusQuery query;
+        private int minZoom;
+        private int maxZoom;
+        private int extent;
+
+        @Override
+        protected void setup(Context context) {
+            Configuration conf = context.getConfiguration();
+            query = CrimeRadiusQuery.fromConf(conf);
+            minZoom = conf.getInt(MIN_ZOOM_KEY, DEFAULT_MIN_ZOOM);
+            maxZoom = conf.getInt(MAX_ZOOM_KEY, DEFAULT_MAX_ZOOM);
+            extent = conf.getInt(EXTENT_KEY, DEFAULT_EXTENT);
+        }
+
+        @Override
+        protected void process(CrimeRecord record, Context context) throws IOException, InterruptedException {
+            if (!query.matchesOffense(record.getOffense())) {
+                return;
+            }
+            for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+                if (key.set(record.getLon(), record.getLat(), zoom, extent)) {
+                    context.write(key, ONE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends all points of a tile to the same reducer, so every tile is written by one task.
+     */
+    public static class TilePartitioner extends Partitioner<CrimeTileKey, LongWritable> {
+        @Override
+        public int getPartition(CrimeTileKey key, LongWritable value, int numPartitions) {
+            return (key.tileHash() & Integer.MAX_VALUE) % numPartitions;
+        }
+    }
+}
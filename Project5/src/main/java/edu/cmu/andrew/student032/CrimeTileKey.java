@@ -0,0 +1,138 @@
+/**
+ * A point in a map tile: the zoom, column and row of the tile in the web mercator tiling used by
+ * web maps, and the position of the point inside the tile in pixels of the tile extent.
+ * Keys sort by tile and then by position, so the points of a tile arrive together and the same
+ * position arrives once per reducer with the counts of all its crimes.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.io.WritableComparable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class CrimeTileKey implements WritableComparable<CrimeTileKey> {
+    private int zoom;
+    private int tileX;
+    private int tileY;
+    private int x;
+    private int y;
+
+    /**
+     * Sets the key to the tile and position of a location.
+     * @param lon the longitude in degrees
+     * @param lat the latitude in degrees
+     * @param zoom the zoom level
+     * @param extent the number of pixels along a side of a tile
+     * @return false if the location can not be shown on a web map
+     */
+    public boolean set(double lon, double lat, int zoom, int extent) {
+        if (!(lon >= -180 && lon < 180 && lat > -85.0511 && lat < 85.0511)) {
+            return false;
+        }
+        double tiles = 1L << zoom;
+        double latRadians = Math.toRadians(lat);
+        double column = (lon + 180) / 360 * tiles;
+        double row = (1 - Math.log(Math.tan(latRadians) + 1 / Math.cos(latRadians)) / Math.PI) / 2 * tiles;
+        this.zoom = zoom;
+        tileX = (int) column;
+        tileY = (int) row;
+        x = (int) ((column - tileX) * extent);
+        y = (int) ((row - tileY) * extent);
+        return true;
+    }
+
+    /**
+     * Copies another key.
+     */
+    public void set(CrimeTileKey other) {
+        zoom = other.zoom;
+        tileX = other.tileX;
+        tileY = other.tileY;
+        x = other.x;
+        y = other.y;
+    }
+
+    public int getZoom() {
+        return zoom;
+    }
+
+    public int getTileX() {
+        return tileX;
+    }
+
+    public int getTileY() {
+        return tileY;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * @return true if the other key is in the same tile
+     */
+    public boolean sameTile(CrimeTileKey other) {
+        return zoom == other.zoom && tileX == other.tileX && tileY == other.tileY;
+    }
+
+    /**
+     * @return a hash of the tile only, so that all points of a tile go to the same reducer
+     */
+    public int tileHash() {
+        return (zoom * 31 + tileX) * 31 + tileY;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(zoom);
+        out.writeInt(tileX);
+        out.writeInt(tileY);
+        out.writeShort(x);
+        out.writeShort(y);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        zoom = in.readByte();
+        tileX = in.readInt();
+        tileY = in.readInt();
+        x = in.readUnsignedShort();
+        y = in.readUnsignedShort();
+    }
+
+    @Override
+    public int compareTo(CrimeTileKey other) {
+        int result = Integer.compare(zoom, other.zoom);
+        if (result == 0) {
+            result = Integer.compare(tileX, other.tileX);
+        }
+        if (result == 0) {
+            result = Integer.compare(tileY, other.tileY);
+        }
+        if (result == 0) {
+            result = Integer.compare(y, other.y);
+        }
+        return result == 0 ? Integer.compare(x, other.x) : result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CrimeTileKey && compareTo((CrimeTileKey) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return (tileHash() * 31 + y) * 31 + x;
+    }
+
+    @Override
+    public String toString() {
+        return zoom + "/" + tileX + "/" + tileY + ":" + x + "," + y;
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * This output format writes the points of each map tile to its own file <zoom>/<x>/<y>.json,
+ * so a map client only fetches the tiles it shows. A tile file is
+ * {"extent":4096,"points":[[x,y,count],...]}
+ * where x and y are pixels of the tile extent, counted from the top left corner like in vector
+ * tiles, and count is the number of crimes at that position.
+ * The records must arrive sorted by CrimeTileKey, and all points of a tile in the same task.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class CrimeTileOutputFormat extends FileOutputFormat<CrimeTileKey, LongWritable> {
+
+    @Override
+    public RecordWriter<CrimeTileKey, LongWritable> getRecordWriter(TaskAttemptContext context) throws IOException {
+        Configuration conf = context.getConfiguration();
+        Path workPath = ((FileOutputCommitter) getOutputCommitter(context)).getWorkPath();
+        return new TileRecordWriter(workPath.getFileSystem(conf), workPath,
+                conf.getInt(CrimeTileExport.EXTENT_KEY, CrimeTileExport.DEFAULT_EXTENT));
+    }
+
+    /**
+     * Writes the points of a tile and starts a new file when the tile changes.
+     */
+    static class TileRecordWriter extends RecordWriter<CrimeTileKey, LongWritable> {
+        private final FileSystem fs;
+        private final Path dir;
+        private final int extent;
+        private final CrimeTileKey tile = new CrimeTileKey();
+        private final StringBuilder point = new StringBuilder();
+        private FSDataOutputStream out;
+        private boolean first;
+
+        TileRecordWriter(FileSystem fs, Path dir, int extent) {
+            this.fs = fs;
+            this.dir = dir;
+            this.extent = extent;
+        }
+
+        @Override
+        public void write(CrimeTileKey key, LongWritable count) throws IOException {
+            if (out == null || !key.sameTile(tile)) {
+                finish();
+                Path file = new Path(dir, key.getZoom() + "/" + key.getTileX() + "/" + key.getTileY() + ".json");
+                out = fs.create(file, false);
+                out.write(("{\"extent\":" + extent + ",\"points\":[").getBytes(StandardCharsets.UTF_8));
+                tile.set(key);
+                first = true;
+            }
+            point.setLength(0);
+            point.append(first ? "" : ",").append('[').append(key.getX()).append(',').append(key.getY())
+                    .append(',').append(count.get()).append(']');
+            out.write(point.toString().getBytes(StandardCharsets.UTF_8));
+            first = false;
+        }
+
+        private void finish() throws IOException {
+            if (out != null) {
+                out.write("]}\n".getBytes(StandardCharsets.UTF_8));
+                out.close();
+                out = null;
+            }
+        }
+
+        @Override
+        public void close(TaskAttemptContext context) throws IOException {
+            finish();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * JobLauncher is the main class of the job jar: it runs the job named by its first argument with
+ * the remaining arguments, e.g.
+ *   hadoop jar Project5-1.0-SNAPSHOT-job.jar AggravatedAssaults crimes.tsv out
+ * Names are not case sensitive. Without arguments it lists the jobs.
+ * Tools are run with ToolRunner, so -D options after the job name are applied to the job;
+ * the jobs of the old MapReduce API are started through their main method.
+ * "LocalRunner <job>" runs a Tool in this process on all cores instead of on the cluster.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public class JobLauncher {
+    private static final Map<String, Class<?>> JOBS = new LinkedHashMap<>();
+
+    static {
+        register(org.myorg.WordCount.class);
+        register(org.myorg.FindPattern.class);
+        register(org.myorg.TopWords.class);
+        register(AggravatedAssaults.class);
+        register(AggravatedAssaultsKML.class);
+        register(RapesPlusRobberies.class);
+        register(RapesPlusRobberiesByType.class);
+        register(CrimeColumnarConverter.class);
+        register(CrimeGridIndexer.class);
+        register(CrimeRadiusSearch.class);
+        register(CrimeBatchRadiusQuery.class);
+        register(CrimeTileExport.class);
+        register(CrimeAggregation.class);
+        register(CrimeCubeBuilder.class);
+        register(CrimeCubeUpdate.class);
+        register(CrimeCube.class);
+        register(MaxTemperature.class);
+        register(MinTemperature.class);
+        register(MaxTemperatureJob.class);
+        register(MinTemperatureJob.class);
+        register(TemperatureStatistics.class);
+        register(TemperaturePercentiles.class);
+        register(LocalRunner.class);
+    }
+
+    private static void register(Class<?> job) {
+        JOBS.put(job.getSimpleName().toLowerCase(Locale.ROOT), job);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || jobClass(args[0]) == null) {
+            if (args.length > 0) {
+                System.err.println("Unknown job: " + args[0]);
+            }
+            System.err.println("Usage: JobLauncher <job> <job arguments>");
+            System.err.println("Jobs:");
+            for (Class<?> job : JOBS.values()) {
+                System.err.println("  " + job.getSimpleName());
+            }
+            System.exit(-1);
+        }
+        Class<?> job = jobClass(args[0]);
+        String[] jobArgs = Arrays.copyOfRange(args, 1, args.length);
+        if (Tool.class.isAssignableFrom(job)) {
+            Configuration conf = new Configuration();
+            Tool tool = (Tool) ReflectionUtils.newInstance(job, conf);
+            System.exit(ToolRunner.run(conf, tool, jobArgs));
+        }
+        try {
+            job.getMethod("main", String[].class).invoke(null, (Object) jobArgs);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param name the name of a job, or the name of a class of this package or the full name of a class
+     * @return the class of the job, or null if there is none
+     */
+    static Class<?> jobClass(String name) {
+        Class<?> job = JOBS.get(name.toLowerCase(Locale.ROOT));
+        if (job != null) {
+            return job;
+        }
+        String className = name.indexOf('.') < 0 ? JobLauncher.class.getPackage().getName() + "." + name : name;
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * KmlDocument makes the parts of a KML document of crime points: the header, one placemark per point
+ * and the footer, so a writer can stream them without holding the document. It does not depend on
+ * Hadoop, so KmlOutputFormat and the REST API of Project5Web write the same KML.
+ * With a shared style the name and description are written once, in the document and in a style
+ * that the placemarks refer to; otherwise every placemark has them.
+ */
+package edu.cmu.andrew.student032;
+
+import java.nio.charset.StandardCharsets;
+
+public class KmlDocument {
+    public static final String MEDIA_TYPE = "application/vnd.google-earth.kml+xml";
+    private static final String STYLE_ID = "crime";
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<kml xmlns=\"http://www.opengis.net/kml/2.2\">\n"
+            + "<Document>\n";
+    private static final byte[] FOOTER = ("</Document>\n"
+            + "</kml>\n").getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] header;
+    private final String placemarkStart;
+    private final String placemarkEnd;
+    private final StringBuilder placemark = new StringBuilder();
+
+    /**
+     * @param name the name of every placemark
+     * @param description the description of every placemark
+     * @param sharedStyle whether the placemarks share a style with the name and description
+     */
+    public KmlDocument(String name, String description, boolean sharedStyle) {
+        if (sharedStyle) {
+            header = (HEADER
+                    + "<name>" + escape(name) + "</name>\n"
+                    + "<description>" + escape(description) + "</description>\n"
+                    + "<Style id=\"" + STYLE_ID + "\">\n"
+                    + "<BalloonStyle><text>" + escape(name + ": " + description) + "</text></BalloonStyle>\n"
+                    + "</Style>\n").getBytes(StandardCharsets.UTF_8);
+            placemarkStart = "<Placemark><styleUrl>#" + STYLE_ID + "</styleUrl><Point><coordinates>";
+        } else {
+            header = HEADER.getBytes(StandardCharsets.UTF_8);
+            placemarkStart = "<Placemark>\n"
+                    + "<name>" + escape(name) + "</name>\n"
+                    + "<description>" + escape(description) + "</description>\n"
+                    + "<Point>\n"
+                    + "<coordinates>";
+        }
+        placemarkEnd = sharedStyle ? "</coordinates></Point></Placemark>\n" : "</coordinates>\n</Point>\n</Placemark>\n";
+    }
+
+    public byte[] header() {
+        return header;
+    }
+
+    /**
+     * @return the placemark of a point; not thread safe, as the text is built in a shared buffer
+     */
+    public byte[] placemark(double lon, double lat) {
+        placemark.setLength(0);
+        placemark.append(placemarkStart)
+                .append(lon).append(',').append(lat).append(",0")
+                .append(placemarkEnd);
+        return placemark.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public byte[] footer() {
+        return FOOTER;
+    }
+
+    /**
+     * Escapes the characters that are not allowed in XML text.
+     */
+    public static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<': escaped.append("&lt;"); break;
+                case '>': escaped.append("&gt;"); break;
+                case '&': escaped.append("&amp;"); break;
+                default: escaped.append(c); break;
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * This output format streams crime points into KML documents: the header when a file is opened,
+ * one placemark per point, and the footer when the file is closed, so no task holds a whole
+ * document in memory. The parts of the documents are made by KmlDocument.
+ * - kml.name and kml.description are the name and description of every placemark
+ * - kml.max.bytes starts a new file once a file reaches this size (0, the default, writes one
+ *   file per task); every file is a complete KML document, named part-r-00000-00000.kml and so on
+ * - kml.kmz writes zipped KMZ files, and kml.max.bytes then applies to the compressed size
+ * - kml.shared.style (on by default for KMZ) writes the name and description once, in the document
+ *   and in a shared style, and placemarks only refer to the style, which makes them about 3 times smaller
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class KmlOutputFormat extends FileOutputFormat<Writable, CrimePoint> {
+    public static final String NAME_KEY = "kml.name";
+    public static final String DESCRIPTION_KEY = "kml.description";
+    public static final String MAX_BYTES_KEY = "kml.max.bytes";
+    public static final String KMZ_KEY = "kml.kmz";
+    public static final String SHARED_STYLE_KEY = "kml.shared.style";
+
+    @Override
+    public RecordWriter<Writable, CrimePoint> getRecordWriter(TaskAttemptContext context) throws IOException {
+        Configuration conf = context.getConfiguration();
+        boolean kmz = conf.getBoolean(KMZ_KEY, false);
+        Path file = getDefaultWorkFile(context, kmz ? ".kmz" : ".kml");
+        return new KmlRecordWriter(file.getFileSystem(conf), file, kmz, conf.getLong(MAX_BYTES_KEY, 0),
+                conf.get(NAME_KEY, ""), conf.get(DESCRIPTION_KEY, ""), conf.getBoolean(SHARED_STYLE_KEY, kmz));
+    }
+
+    /**
+     * Writes the placemarks of one task, rolling over to a new file at the size limit.
+     */
+    static class KmlRecordWriter extends RecordWriter<Writable, CrimePoint> {
+        private final FileSystem fs;
+        private final Path file;
+        private final boolean kmz;
+        private final long maxBytes;
+        private final KmlDocument document;
+        private FSDataOutputStream fileOut;
+        private OutputStream out;
+        private long written;
+        private int placemarks;
+        private int files;
+
+        KmlRecordWriter(FileSystem fs, Path file, boolean kmz, long maxBytes, String name, String description, boolean sharedStyle) {
+            this.fs = fs;
+            this.file = file;
+            this.kmz = kmz;
+            this.maxBytes = maxBytes;
+            this.document = new KmlDocument(name, description, sharedStyle);
+        }
+
+        @Override
+        public void write(Writable key, CrimePoint point) throws IOException {
+            if (out == null) {
+                open();
+            } else if (maxBytes > 0 && placemarks > 0 && size() >= maxBytes) {
+                finish();
+                open();
+            }
+            write(document.placemark(point.getLon(), point.getLat()));
+            placemarks++;
+        }
+
+        private long size() throws IOException {
+            return kmz ? fileOut.getPos() : written;
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            out.write(bytes);
+            written += bytes.length;
+        }
+
+        private void open() throws IOException {
+            Path path = file;
+            if (maxBytes > 0) {
+                String name = file.getName();
+                int dot = name.lastIndexOf('.');
+                path = new Path(file.getParent(), name.substring(0, dot) + String.format("-%05d", files) + name.substring(dot));
+            }
+            files++;
+            fileOut = fs.create(path, false);
+            if (kmz) {
+                ZipOutputStream zip = new ZipOutputStream(fileOut);
+                zip.putNextEntry(new ZipEntry("doc.kml"));
+                out = zip;
+            } else {
+                out = fileOut;
+            }
+            written = 0;
+            placemarks = 0;
+            write(document.header());
+        }
+
+        private void finish() throws IOException {
+            write(document.footer());
+            if (kmz) {
+                ZipOutputStream zip = (ZipOutputStream) out;
+                zip.closeEntry();
+                zip.finish();
+            }
+            out.close();
+            out = null;
+        }
+
+        @Override
+        public void close(TaskAttemptContext context) throws IOException {
+            if (out == null) {
+                // a task without points still writes an empty document
+                open();
+            }
+            finish();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * LocalRunner runs a job of this project in the process that starts it, with its map and reduce
+ * tasks spread over all the cores of the machine, instead of submitting it to YARN.
+ * On small inputs the scheduling of a cluster job takes longer than the job itself.
+ * Usage: LocalRunner [-D local.threads=N] <job> <job arguments>
+ * The job is a Tool, named like in JobLauncher, e.g. MaxTemperatureJob or CrimeAggregation.
+ * - local.threads is the number of tasks that run at the same time (the number of cores by default)
+ * - local.split.size is the largest input split in bytes (8 MB by default), so that even a small
+ *   file is read by several map tasks; splittable inputs only
+ * The number of reducers is left to the job and to mapreduce.job.reduces.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import java.util.Arrays;
+
+public class LocalRunner extends Configured implements Tool {
+    public static final String THREADS_KEY = "local.threads";
+    public static final String SPLIT_SIZE_KEY = "local.split.size";
+    public static final long DEFAULT_SPLIT_SIZE = 8L * 1024 * 1024;
+    private static final int MAX_SORT_MB = 100;
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = ToolRunner.run(new LocalRunner(), args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: LocalRunner [-D local.threads=N] <job> <job arguments>");
+            return -1;
+        }
+        Configuration conf = getConf();
+        configure(conf);
+        Tool tool = ReflectionUtils.newInstance(toolClass(args[0]), conf);
+        return ToolRunner.run(conf, tool, Arrays.copyOfRange(args, 1, args.length));
+    }
+
+    /**
+     * Sets a configuration up to run jobs in this process with local.threads parallel tasks.
+     */
+    public static void configure(Configuration conf) {
+        int threads = conf.getInt(THREADS_KEY, Runtime.getRuntime().availableProcessors());
+        if (threads < 1) {
+            throw new IllegalArgumentException(THREADS_KEY + " must be at least 1: " + threads);
+        }
+        conf.set("mapreduce.framework.name", "local");
+        conf.setInt("mapreduce.local.map.tasks.maximum", threads);
+        conf.setInt("mapreduce.local.reduce.tasks.maximum", threads);
+        conf.setIfUnset("mapreduce.input.fileinputformat.split.maxsize",
+                Long.toString(conf.getLong(SPLIT_SIZE_KEY, DEFAULT_SPLIT_SIZE)));
+        // every running map task has its own sort buffer in the same heap
+        long sortMb = Runtime.getRuntime().maxMemory() / (1024 * 1024) / 4 / threads;
+        conf.setIfUnset("mapreduce.task.io.sort.mb", Long.toString(Math.max(1, Math.min(MAX_SORT_MB, sortMb))));
+    }
+
+    /**
+     * @param name the name of a Tool, see JobLauncher
+     */
+    static Class<? extends Tool> toolClass(String name) {
+        Class<?> cls = JobLauncher.jobClass(name);
+        if (cls == null || !Tool.class.isAssignableFrom(cls)) {
+            throw new IllegalArgumentException(name + " is not a Tool");
+        }
+        return cls.asSubclass(Tool.class);
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * The MaxTemperatureJob class finds the maximum temperature for each year in the NCDC data,
+ * like MaxTemperature, with the new MapReduce API. The reducer is also the combiner, so each
+ * map task only sends one temperature per year to the reducers.
+ * The output has one line per year with the maximum in tenths of a degree Celsius.
+ * Run it with LocalRunner to use all the cores of one machine without a cluster.
+ * @author Ruta Deshpande
+ * email - rutasurd@andrew.cmu.edu
+ * Andrew id - rutasurd
+ */
+package edu.cmu.andrew.student032;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+public class MaxTemperatureJob extends Configured implements Tool {
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = ToolRunner.run(new MaxTemperatureJob(), args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: MaxTemperatureJob <input path> <output path>");
+            return -1;
+        }
+        Job job = Job.getInstance(getConf(), "Max temperature");
+        job.setJarByClass(getClass());
+
+        FileInputFormat.addInputPath(job, new Path(args[0]));
+        FileOutputFormat.setOutputPath(job, new Path(args[1]));
+
+        job.setMapperClass(YearTemperatureMapper.class);
+        job.setCombinerClass(MaxTemperatureReducer.class);
+        job.setReducerClass(MaxTemperatureReducer.class);
+
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(IntWritable.class);
+
+        return job.waitForCompletion(true) ? 0 : 1;
+    }
+
+    /**
+     * Outputs the maximum of the temperatures of a year.
+     */
+    public static class MaxTemperatureReducer extends Reducer<Text, IntWritable, Text, IntWritable> {
+        private final IntWritable maximum = new IntWritable();
+
+        @Override
+        public void reduce(Text key, Iterable<IntWritable> values, Context context) throws IOException, InterruptedException {
+            int maxValue = Integer.MIN_VALUE;
+            for (IntWritable value : values) {
+                maxValue = Math.max(maxValue, value.get());
+            }
+            maximum.set(maxValue);
+            context.write(key, maximum);
+        }
+    }
+}
@@ -21,37 +21,31 @@ import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reporter;
 
 public class MaxTemperatureMapper extends MapReduceBase implements Mapper<LongWritable, Text, Text, IntWritable> {
-    private static final int MISSING = 9999;
+    private final NcdcRecordParser parser = new NcdcRecordParser();
+    private final Text year = new Text();
+    private final IntWritable airTemperature = new IntWritable();
+
     public void map(LongWritable key, Text value, OutputCollector<Text, IntWritable> output, Reporter reporter) throws 			IOException {
 
         // Get line from input file. This was passed in by Hadoop as value.
         // We have no use for the key (file offset) so we are ignoring it.
+        // The parser reads the year (positions 15-18), the temperature (87-91) and
+        // its quality (92) straight from the bytes of the line.
 
-        String line = value.toString();
-
-        // Get year when weather data was collected. The year is in positions 15-18.
-        // This field is at a fixed position within a line.
-        String year = line.substring(15, 19);
-
-        // Get the temperature too.
-
-        int airTemperature;
-        if (line.charAt(87) == '+') { // parseInt doesn't like leading plus signs
-            airTemperature = Integer.parseInt(line.substring(88, 92));
-        } else {
-            airTemperature = Integer.parseInt(line.substring(87, 92));
+        if (!parser.parse(value)) {
+            return;
         }
 
-        // Get quality of reading. If not missing and of good quality then
-        // produce intermediate (year,temp).
+        // If not missing and of good quality then produce intermediate (year,temp).
 
-        String quality = line.substring(92, 93);
-        if (airTemperature != MISSING && quality.matches("[01459]")) {
+        if (parser.isValidTemperature()) {
 
             // for each year in input, reduce will be called with
             // (year,[temp,temp,temp, ...])
             // They key is year and the list of temps will be placed in an iterator.
 
-            output.collect(new Text(year), new IntWritable(airTemperature)); }
+            parser.copyYear(year);
+            airTemperature.set(parser.getAirTemperature());
+            output.collect(year, airTemperature); }
     }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+/**
+ * The MinTemperatureJob class finds the minimum temperature for each year in the NCDC data,
+ * like MinTemperature, with the new MapReduce API.
+ * The combiner keeps the minimum in tenths of a degree, and the reducer converts it to whole
+ * degrees Celsius like MinTemperatureMapper does; truncating the minimum gives the same result
+ * as taking the minimum of the truncated temperatures.
+ * Run it with LocalRunner to use all the cores of one machine without a cluster.
+ * @author Ruta Deshpande
+ * email - rutasurd@andrew.cmu.edu
+ * Andrew id - rutasurd
+ */
+package edu.cmu.andrew.student032;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+public class MinTemperatureJob extends Configured implements Tool {
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = ToolRunner.run(new MinTemperatureJob(), args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: MinTemperatureJob <input path> <output path>");
+            return -1;
+        }
+        Job job = Job.getInstance(getConf(), "Min temperature");
+        job.setJarByClass(getClass());
+
+        FileInputFormat.addInputPath(job, new Path(args[0]));
+        FileOutputFormat.setOutputPath(job, new Path(args[1]));
+
+        job.setMapperClass(YearTemperatureMapper.class);
+        job.setCombinerClass(MinTemperatureCombiner.class);
+        job.setReducerClass(MinTemperatureReducer.class);
+
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(IntWritable.class);
+
+        return job.waitForCompletion(true) ? 0 : 1;
+    }
+
+    /**
+     * Outputs the minimum of the temperatures of a year, in tenths of a degree.
+     */
+    public static class MinTemperatureCombiner extends Reducer<Text, IntWritable, Text, IntWritable> {
+        private final IntWritable minimum = new IntWritable();
+
+        @Override
+        public void reduce(Text key, Iterable<IntWritable> values, Context context) throws IOException, InterruptedException {
+            int minValue = Integer.MAX_VALUE;
+            for (IntWritable value : values) {
+                minValue = Math.min(minValue, value.get());
+            }
+            minimum.set(scale(minValue));
+            context.write(key, minimum);
+        }
+
+        protected int scale(int minValue) {
+            return minValue;
+        }
+    }
+
+    /**
+     * Outputs the minimum of the temperatures of a year, in whole degrees.
+     */
+    public static class MinTemperatureReducer extends MinTemperatureCombiner {
+        @Override
+        protected int scale(int minValue) {
+            return minValue / 10;
+        }
+    }
+}
@@ -21,24 +21,21 @@ import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reporter;
 
 public class MinTemperatureMapper extends MapReduceBase implements Mapper<LongWritable, Text, Text, IntWritable> {
-    private static final int MISSING = 9999;
+    private final NcdcRecordParser parser = new NcdcRecordParser();
+    private final Text year = new Text();
+    private final IntWritable temperature = new IntWritable();
 
     public void map(LongWritable key, Text value, OutputCollector<Text, IntWritable> output, Reporter reporter) throws IOException {
-        String line = value.toString();
-
-        String year = line.substring(15, 19);
-
-        int airTemperature;
-        if (line.charAt(87) == '+') {
-            airTemperature = Integer.parseInt(line.substring(88, 92));
-        } else {
-            airTemperature = Integer.parseInt(line.substring(87, 92));
+        if (!parser.parse(value)) {
+            return;
         }
-        airTemperature /= 10; // Convert temperature to Celsius
 
-        String quality = line.substring(92, 93);
-        if (airTemperature != MISSING && quality.matches("[01459]")) {
-            output.collect(new Text(year), new IntWritable(airTemperature));
+        // Check for missing readings before scaling, 9999 / 10 would no longer be NcdcRecordParser.MISSING
+        if (parser.isValidTemperature()) {
+            int airTemperature = parser.getAirTemperature() / 10; // Convert temperature to Celsius
+            parser.copyYear(year);
+            temperature.set(airTemperature);
+            output.collect(year, temperature);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+/**
+ * NcdcRecordParser decodes the fields the temperature jobs need from a fixed width NCDC weather record,
+ * directly from the bytes of the Text, without creating strings or compiling regular expressions.
+ * - the station, a USAF and a WBAN identifier, is in positions 4-14
+ * - the year is in positions 15-18 and the month in 19-20
+ * - the air temperature, in tenths of a degree Celsius, is in positions 87-91 with a leading + or - sign,
+ *   and is 9999 when missing
+ * - the quality code of the temperature is in position 92; 0, 1, 4, 5 and 9 are good readings
+ * One parser is reused for every record of a mapper.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.io.Text;
+
+public class NcdcRecordParser {
+    public static final int MISSING = 9999;
+    private static final int STATION_START = 4;
+    public static final int STATION_LENGTH = 11;
+    private static final int YEAR_START = 15;
+    private static final int MONTH_START = 19;
+    private static final int TEMPERATURE_START = 87;
+    private static final int QUALITY = 92;
+    private static final boolean[] GOOD_QUALITY = new boolean[256];
+
+    static {
+        for (char code : "01459".toCharArray()) {
+            GOOD_QUALITY[code] = true;
+        }
+    }
+
+    private byte[] bytes;
+    private int year;
+    private int month;
+    private int airTemperature;
+    private int quality;
+
+    /**
+     * Decodes a record. The parser keeps a reference to the bytes of the Text until the next call.
+     * @param record a line of the NCDC data
+     * @return false if the record is too short or a number is malformed
+     */
+    public boolean parse(Text record) {
+        bytes = record.getBytes();
+        if (record.getLength() <= QUALITY) {
+            return false;
+        }
+        year = digits(YEAR_START, 4);
+        month = digits(MONTH_START, 2);
+        byte sign = bytes[TEMPERATURE_START];
+        int temperature = digits(TEMPERATURE_START + 1, 4);
+        if (year < 0 || month < 0 || temperature < 0 || (sign != '+' && sign != '-')) {
+            return false;
+        }
+        airTemperature = sign == '-' ? -temperature : temperature;
+        quality = bytes[QUALITY] & 0xff;
+        return true;
+    }
+
+    /**
+     * @return the value of count decimal digits, or -1 if one of them is not a digit
+     */
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    /**
+     * Copies the station identifier, STATION_LENGTH bytes, into an array.
+     */
+    public void copyStation(byte[] target, int offset) {
+        System.arraycopy(bytes, STATION_START, target, offset, STATION_LENGTH);
+    }
+
+    /**
+     * Sets a Text to the year of the record without decoding it.
+     */
+    public void copyYear(Text text) {
+        text.set(bytes, YEAR_START, 4);
+    }
+
+    /**
+     * @return the air temperature in tenths of a degree Celsius, MISSING if it was not measured
+     */
+    public int getAirTemperature() {
+        return airTemperature;
+    }
+
+    public boolean isMissingTemperature() {
+        return airTemperature == MISSING;
+    }
+
+    public boolean isGoodQuality() {
+        return GOOD_QUALITY[quality];
+    }
+
+    /**
+     * @return true if the temperature was measured and is of good quality
+     */
+    public boolean isValidTemperature() {
+        return airTemperature != MISSING && GOOD_QUALITY[quality];
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * QuantileSketch is a KLL quantile sketch of integers: it answers quantile queries such as the median
+ * or the 99th percentile of a stream with a rank error of about 1.7 / k, in O(k log(n / k)) memory,
+ * and two sketches can be merged into one sketch of both streams.
+ * Items are kept in levels; an item at level h stands for 2^h items of the stream. When the sketch
+ * is full, the lowest full level is sorted and every other item, starting at a random one, is promoted
+ * to the next level. The capacity of a level shrinks by a factor 2/3 for every level below the top one.
+ * The random choices use a fixed seed, so the same input gives the same sketch.
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class QuantileSketch implements Writable {
+    public static final int DEFAULT_K = 200;
+    private static final int MIN_LEVEL_CAPACITY = 8;
+    private static final double LEVEL_RATIO = 2.0 / 3.0;
+
+    private int k;
+    private long count;
+    private final List<int[]> levels = new ArrayList<>();
+    private final List<Integer> sizes = new ArrayList<>();
+    private final Random random = new Random(0x5eed);
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    public QuantileSketch(int k) {
+        clear(k);
+    }
+
+    /**
+     * Empties the sketch.
+     * @param k the accuracy parameter, the capacity of the top level
+     */
+    public void clear(int k) {
+        if (k < MIN_LEVEL_CAPACITY) {
+            throw new IllegalArgumentException("k must be at least " + MIN_LEVEL_CAPACITY + ": " + k);
+        }
+        this.k = k;
+        count = 0;
+        levels.clear();
+        sizes.clear();
+        addLevel();
+    }
+
+    private void addLevel() {
+        levels.add(new int[MIN_LEVEL_CAPACITY]);
+        sizes.add(0);
+    }
+
+    public void add(int value) {
+        append(0, value);
+        count++;
+        compress();
+    }
+
+    /**
+     * Adds the items of another sketch, which can have a different k.
+     */
+    public void merge(QuantileSketch other) {
+        while (levels.size() < other.levels.size()) {
+            addLevel();
+        }
+        for (int h = 0; h < other.levels.size(); h++) {
+            int[] items = other.levels.get(h);
+            for (int i = 0; i < other.sizes.get(h); i++) {
+                append(h, items[i]);
+            }
+        }
+        count += other.count;
+        compress();
+    }
+
+    private void append(int level, int value) {
+        int size = sizes.get(level);
+        int[] items = levels.get(level);
+        if (size == items.length) {
+            items = Arrays.copyOf(items, 2 * size);
+            levels.set(level, items);
+        }
+        items[size] = value;
+        sizes.set(level, size + 1);
+    }
+
+    private int levelCapacity(int level) {
+        int depth = levels.size() - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(LEVEL_RATIO, depth)));
+    }
+
+    private void compress() {
+        while (true) {
+            int total = 0;
+            int capacity = 0;
+            for (int h = 0; h < levels.size(); h++) {
+                total += sizes.get(h);
+                capacity += levelCapacity(h);
+            }
+            if (total <= capacity) {
+                return;
+            }
+            for (int h = 0; h < levels.size(); h++) {
+                if (sizes.get(h) >= levelCapacity(h)) {
+                    compact(h);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Promotes every other item of a level to the next level, keeping one item back if the number is odd.
+     */
+    private void compact(int level) {
+        if (level + 1 == levels.size()) {
+            addLevel();
+        }
+        int size = sizes.get(level);
+        int[] items = levels.get(level);
+        Arrays.sort(items, 0, size);
+        int pairs = size / 2 * 2;
+        for (int i = random.nextBoolean() ? 1 : 0; i < pairs; i += 2) {
+            append(level + 1, items[i]);
+        }
+        if (size > pairs) {
+            items[0] = items[size - 1];
+        }
+        sizes.set(level, size - pairs);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param fractions the ranks of the quantiles, between 0 and 1, e.g. 0.5 for the median
+     * @return the approximate quantiles, or an empty array if the sketch is empty
+     */
+    public int[] quantiles(double... fractions) {
+        if (count == 0) {
+            return new int[0];
+        }
+        int total = 0;
+        for (int size : sizes) {
+            total += size;
+        }
+        long[] items = new long[total];
+        int n = 0;
+        for (int h = 0; h < levels.size(); h++) {
+            int[] level = levels.get(h);
+            for (int i = 0; i < sizes.get(h); i++) {
+                // the value in the upper and the level in the lower bits, so sorting sorts by value
+                items[n++] = ((long) level[i] << 8) | h;
+            }
+        }
+        Arrays.sort(items);
+        long weight = 0;
+        for (long item : items) {
+            weight += 1L << (item & 0xff);
+        }
+        int[] result = new int[fractions.length];
+        for (int q = 0; q < fractions.length; q++) {
+            long rank = (long) Math.ceil(fractions[q] * weight);
+            long cumulative = 0;
+            result[q] = (int) (items[items.length - 1] >> 8);
+            for (long item : items) {
+                cumulative += 1L << (item & 0xff);
+                if (cumulative >= rank) {
+                    result[q] = (int) (item >> 8);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        WritableUtils.writeVInt(out, k);
+        WritableUtils.writeVLong(out, count);
+        WritableUtils.writeVInt(out, levels.size());
+        for (int h = 0; h < levels.size(); h++) {
+            int[] items = levels.get(h);
+            WritableUtils.writeVInt(out, sizes.get(h));
+            for (int i = 0; i < sizes.get(h); i++) {
+                WritableUtils.writeVInt(out, items[i]);
+            }
+        }
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        clear(WritableUtils.readVInt(in));
+        count = WritableUtils.readVLong(in);
+        int numLevels = WritableUtils.readVInt(in);
+        while (levels.size() < numLevels) {
+            addLevel();
+        }
+        for (int h = 0; h < numLevels; h++) {
+            int size = WritableUtils.readVInt(in);
+            for (int i = 0; i < size; i++) {
+                append(h, WritableUtils.readVInt(in));
+            }
+        }
+    }
+}
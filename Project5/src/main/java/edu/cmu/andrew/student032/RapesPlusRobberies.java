@@ -14,15 +14,11 @@ package edu.cmu.andrew.student032;
 import org.apache.hadoop.conf.Configured;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
-import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Job;
-import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.Reducer;
-import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
-import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
@@ -31,20 +27,14 @@ import java.io.IOException;
 
 public class RapesPlusRobberies extends Configured implements Tool {
 
-    public static class RapesPlusRobberiesMapper extends Mapper<LongWritable, Text, NullWritable, IntWritable> {
+    public static class RapesPlusRobberiesMapper extends CrimeRecordMapper<NullWritable, IntWritable> {
         private final static IntWritable ONE = new IntWritable(1);
 
         @Override
-        public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
-            String textLine = value.toString();
-            if (!textLine.startsWith("X")) {
-                String[] data = textLine.split("\t");
-                if (data.length >= 5) {
-                    String rapeOrRobbery = data[4].toLowerCase();
-                    if (rapeOrRobbery.equalsIgnoreCase("rape") || rapeOrRobbery.equalsIgnoreCase("robbery")) {
-                        context.write(NullWritable.get(), ONE);
-                    }
-                }
+        protected void process(CrimeRecord record, Context context) throws IOException, InterruptedException {
+            String rapeOrRobbery = record.getOffense();
+            if (rapeOrRobbery.equalsIgnoreCase("rape") || rapeOrRobbery.equalsIgnoreCase("robbery")) {
+                context.write(NullWritable.get(), ONE);
             }
         }
     }
@@ -73,10 +63,9 @@ public class RapesPlusRobberies extends Configured implements Tool {
         job.setCombinerClass(RapesPlusRobberiesReducer.class);
         job.setReducerClass(RapesPlusRobberiesReducer.class);
 
-        job.setInputFormatClass(TextInputFormat.class);
         job.setOutputFormatClass(TextOutputFormat.class);
 
-        FileInputFormat.setInputPaths(job, new Path(args[0]));
+        CrimeRecordMapper.setInput(job, new Path(args[0]), CrimeColumn.OFFENSE);
         FileOutputFormat.setOutputPath(job, new Path(args[1]));
 
         return job.waitForCompletion(true) ? 0 : 1;
@@ -0,0 +1,76 @@
+/**
+ * The TemperaturePercentiles class is the driver of a Hadoop MapReduce job that computes the
+ * distribution of the temperature for each station and month of the NCDC data.
+ * The mappers build a QuantileSketch per station and month, and the combiner and the reducer merge
+ * them, so the memory per key stays bounded however many readings a station has.
+ * - ncdc.percentiles are the percentiles to output, as fractions (0.5,0.95,0.99 by default)
+ * - ncdc.percentiles.per.year keys the distributions by year and month instead of month only
+ * - ncdc.sketch.k is the accuracy of the sketches (200 by default, a rank error of about 1%)
+ * The output has one line per station and month: station, month, number of valid readings and
+ * the percentiles in degrees Celsius.
+ * @author Ruta Deshpande
+ * email - rutasurd@andrew.cmu.edu
+ * Andrew id - rutasurd
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+public class TemperaturePercentiles extends Configured implements Tool {
+    public static final String PERCENTILES_KEY = "ncdc.percentiles";
+    public static final String PER_YEAR_KEY = "ncdc.percentiles.per.year";
+    public static final String SKETCH_K_KEY = "ncdc.sketch.k";
+    public static final String DEFAULT_PERCENTILES = "0.5,0.95,0.99";
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = ToolRunner.run(new TemperaturePercentiles(), args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: TemperaturePercentiles [-D ncdc.percentiles=0.5,0.95,0.99] <input path> <output path>");
+            return -1;
+        }
+        Job job = Job.getInstance(getConf(), "Temperature percentiles");
+        job.setJarByClass(getClass());
+
+        FileInputFormat.addInputPath(job, new Path(args[0]));
+        FileOutputFormat.setOutputPath(job, new Path(args[1]));
+
+        job.setMapperClass(TemperaturePercentilesMapper.class);
+        job.setCombinerClass(TemperatureSketchCombiner.class);
+        job.setReducerClass(TemperaturePercentilesReducer.class);
+
+        job.setMapOutputKeyClass(Text.class);
+        job.setMapOutputValueClass(QuantileSketch.class);
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(Text.class);
+
+        return job.waitForCompletion(true) ? 0 : 1;
+    }
+
+    /**
+     * @return the fractions of the percentiles in ncdc.percentiles
+     */
+    static double[] fractions(Configuration conf) {
+        String[] values = conf.getTrimmedStrings(PERCENTILES_KEY, DEFAULT_PERCENTILES.split(","));
+        double[] fractions = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            fractions[i] = Double.parseDouble(values[i]);
+            if (fractions[i] < 0 || fractions[i] > 1) {
+                throw new IllegalArgumentException(PERCENTILES_KEY + " must be fractions between 0 and 1: " + values[i]);
+            }
+        }
+        return fractions;
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * The TemperaturePercentilesMapper class is the mapper of the temperature percentiles job.
+ * It keeps one QuantileSketch per station and month of the readings of its split, so its memory
+ * grows with the number of stations and not with the number of readings, and emits the sketches
+ * in cleanup, when the split is done. The key is the station and the month (01-12) separated by a tab,
+ * or the station and year-month (like 1950-01) when ncdc.percentiles.per.year is true.
+ * @author Ruta Deshpande
+ * Email id - rutasurd@andrew.cmu.edu
+ * Andrew id - rutasurd
+ */
+package edu.cmu.andrew.student032;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+public class TemperaturePercentilesMapper extends Mapper<LongWritable, Text, Text, QuantileSketch> {
+    private final NcdcRecordParser parser = new NcdcRecordParser();
+    private final Map<Text, QuantileSketch> sketches = new HashMap<>();
+    private final Text lookup = new Text();
+    private final byte[] key = new byte[NcdcRecordParser.STATION_LENGTH + 9];
+    private boolean perYear;
+    private int k;
+
+    @Override
+    protected void setup(Context context) {
+        Configuration conf = context.getConfiguration();
+        perYear = conf.getBoolean(TemperaturePercentiles.PER_YEAR_KEY, false);
+        k = conf.getInt(TemperaturePercentiles.SKETCH_K_KEY, QuantileSketch.DEFAULT_K);
+    }
+
+    @Override
+    public void map(LongWritable offset, Text value, Context context) {
+        if (!parser.parse(value) || !parser.isValidTemperature()) {
+            return;
+        }
+        parser.copyStation(key, 0);
+        int length = NcdcRecordParser.STATION_LENGTH;
+        key[length++] = '\t';
+        if (perYear) {
+            int year = parser.getYear();
+            key[length++] = (byte) ('0' + year / 1000);
+            key[length++] = (byte) ('0' + year / 100 % 10);
+            key[length++] = (byte) ('0' + year / 10 % 10);
+            key[length++] = (byte) ('0' + year % 10);
+            key[length++] = '-';
+        }
+        key[length++] = (byte) ('0' + parser.getMonth() / 10);
+        key[length++] = (byte) ('0' + parser.getMonth() % 10);
+        lookup.set(key, 0, length);
+        QuantileSketch sketch = sketches.get(lookup);
+        if (sketch == null) {
+            sketch = new QuantileSketch(k);
+            sketches.put(new Text(lookup), sketch);
+        }
+        sketch.add(parser.getAirTemperature());
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        for (Map.Entry<Text, QuantileSketch> entry : sketches.entrySet()) {
+            context.write(entry.getKey(), entry.getValue());
+        }
+        sketches.clear();
+    }
+}
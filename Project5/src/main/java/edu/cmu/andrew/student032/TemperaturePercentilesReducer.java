@@ -0,0 +1,44 @@
+/**
+ * The TemperaturePercentilesReducer class merges the QuantileSketches of each station and month
+ * and outputs the number of readings and the percentiles in ncdc.percentiles, in degrees Celsius.
+ * @author Ruta Deshpande
+ * Email id - rutasurd@andrew.cmu.edu
+ * Andrew id - rutasurd
+ */
+package edu.cmu.andrew.student032;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+
+public class TemperaturePercentilesReducer extends Reducer<Text, QuantileSketch, Text, Text> {
+    private final QuantileSketch sketch = new QuantileSketch();
+    private final Text percentiles = new Text();
+    private final StringBuilder line = new StringBuilder();
+    private double[] fractions;
+    private int k;
+
+    @Override
+    protected void setup(Context context) {
+        Configuration conf = context.getConfiguration();
+        fractions = TemperaturePercentiles.fractions(conf);
+        k = conf.getInt(TemperaturePercentiles.SKETCH_K_KEY, QuantileSketch.DEFAULT_K);
+    }
+
+    @Override
+    public void reduce(Text key, Iterable<QuantileSketch> values, Context context) throws IOException, InterruptedException {
+        sketch.clear(k);
+        for (QuantileSketch value : values) {
+            sketch.merge(value);
+        }
+        line.setLength(0);
+        line.append(sketch.getCount());
+        for (int quantile : sketch.quantiles(fractions)) {
+            line.append('\t').append(quantile / 10.0);
+        }
+        percentiles.set(line.toString());
+        context.write(key, percentiles);
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * The TemperatureSketchCombiner class merges the QuantileSketches of each station and month
+ * before they are sent to the reducer.
+ * @author Ruta Deshpande
+ * Email id - rutasurd@andrew.cmu.edu
+ * Andrew id - rutasurd
+ */
+package edu.cmu.andrew.student032;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+
+public class TemperatureSketchCombiner extends Reducer<Text, QuantileSketch, Text, QuantileSketch> {
+    private final QuantileSketch result = new QuantileSketch();
+    private int k;
+
+    @Override
+    protected void setup(Context context) {
+        k = context.getConfiguration().getInt(TemperaturePercentiles.SKETCH_K_KEY, QuantileSketch.DEFAULT_K);
+    }
+
+    @Override
+    public void reduce(Text key, Iterable<QuantileSketch> values, Context context) throws IOException, InterruptedException {
+        result.clear(k);
+        for (QuantileSketch value : values) {
+            result.merge(value);
+        }
+        context.write(key, result);
+    }
+}
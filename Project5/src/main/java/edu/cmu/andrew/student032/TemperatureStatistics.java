@@ -0,0 +1,50 @@
+/**
+ * The TemperatureStatistics class is the driver of a Hadoop MapReduce job that computes the
+ * minimum, maximum, mean and standard deviation of the temperature for each year in one scan
+ * of the NCDC data, instead of one job per statistic like MaxTemperatureJob and MinTemperatureJob.
+ * The output has one line per year: year, min, max, mean, standard deviation (in degrees Celsius)
+ * and the number of valid readings.
+ * @author Ruta Deshpande
+ * email - rutasurd@andrew.cmu.edu
+ * Andrew id - rutasurd
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+public class TemperatureStatistics extends Configured implements Tool {
+
+    public static void main(String[] args) throws Exception {
+        int exitCode = ToolRunner.run(new TemperatureStatistics(), args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public int run(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: TemperatureStatistics <input path> <output path>");
+            return -1;
+        }
+        Job job = Job.getInstance(getConf(), "Temperature statistics");
+        job.setJarByClass(getClass());
+
+        FileInputFormat.addInputPath(job, new Path(args[0]));
+        FileOutputFormat.setOutputPath(job, new Path(args[1]));
+
+        job.setMapperClass(TemperatureStatsMapper.class);
+        job.setCombinerClass(TemperatureStatsReducer.class);
+        job.setReducerClass(TemperatureStatsReducer.class);
+
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(TemperatureStats.class);
+
+        return job.waitForCompletion(true) ? 0 : 1;
+    }
+}
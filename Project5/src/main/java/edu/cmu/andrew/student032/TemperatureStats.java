@@ -0,0 +1,107 @@
+/**
+ * The TemperatureStats class is the partial aggregate of the temperature statistics job:
+ * the minimum, maximum, number, sum and sum of squares of temperatures in tenths of a degree Celsius.
+ * Partial aggregates are merged by the combiner and the reducer, and the final one is printed as
+ * min, max, mean, standard deviation (all in degrees Celsius) and count, separated by tabs.
+ * The fields are written as variable length numbers, so one reading takes a few bytes.
+ * @author Ruta Deshpande
+ * Email id - rutasurd@andrew.cmu.edu
+ * Andrew id - rutasurd
+ */
+package edu.cmu.andrew.student032;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class TemperatureStats implements Writable {
+    private int min;
+    private int max;
+    private long count;
+    private long sum;
+    private long sumOfSquares;
+
+    /**
+     * Sets the statistics to a single temperature.
+     * @param temperature the temperature in tenths of a degree Celsius
+     */
+    public void set(int temperature) {
+        min = temperature;
+        max = temperature;
+        count = 1;
+        sum = temperature;
+        sumOfSquares = (long) temperature * temperature;
+    }
+
+    public void clear() {
+        min = Integer.MAX_VALUE;
+        max = Integer.MIN_VALUE;
+        count = 0;
+        sum = 0;
+        sumOfSquares = 0;
+    }
+
+    /**
+     * Adds the temperatures of another partial aggregate.
+     */
+    public void merge(TemperatureStats other) {
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        count += other.count;
+        sum += other.sum;
+        sumOfSquares += other.sumOfSquares;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the mean in tenths of a degree Celsius
+     */
+    public double getMean() {
+        return (double) sum / count;
+    }
+
+    /**
+     * @return the population standard deviation in tenths of a degree Celsius
+     */
+    public double getStandardDeviation() {
+        double mean = getMean();
+        return Math.sqrt(Math.max(0, (double) sumOfSquares / count - mean * mean));
+    }
+
+    @Override
+    public void write(DataOutput out) throws IOException {
+        WritableUtils.writeVInt(out, min);
+        WritableUtils.writeVInt(out, max);
+        WritableUtils.writeVLong(out, count);
+        WritableUtils.writeVLong(out, sum);
+        WritableUtils.writeVLong(out, sumOfSquares);
+    }
+
+    @Override
+    public void readFields(DataInput in) throws IOException {
+        min = WritableUtils.readVInt(in);
+        max = WritableUtils.readVInt(in);
+        count = WritableUtils.readVLong(in);
+        sum = WritableUtils.readVLong(in);
+        sumOfSquares = WritableUtils.readVLong(in);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f\t%.1f\t%.2f\t%.2f\t%d", min / 10.0, max / 10.0, getMean() / 10, getStandardDeviation() / 10, count);
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * The TemperatureStatsMapper class is the mapper of the temperature statistics job.
+ * For every valid reading it emits the year and a TemperatureStats of that single temperature.
+ * Missing and bad quality readings are dropped before the temperature is used at all;
+ * temperatures stay in tenths of a degree until the statistics are printed.
+ * @author Ruta Deshpande
+ * Email id - rutasurd@andrew.cmu.edu
+ * Andrew id - rutasurd
+ */
+package edu.cmu.andrew.student032;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+public class TemperatureStatsMapper extends Mapper<LongWritable, Text, Text, TemperatureStats> {
+    private final NcdcRecordParser parser = new NcdcRecordParser();
+    private final Text year = new Text();
+    private final TemperatureStats stats = new TemperatureStats();
+
+    @Override
+    public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+        if (parser.parse(value) && parser.isValidTemperature()) {
+            parser.copyYear(year);
+            stats.set(parser.getAirTemperature());
+            context.write(year, stats);
+        }
+    }
+}
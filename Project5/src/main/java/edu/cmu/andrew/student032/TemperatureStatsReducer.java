@@ -0,0 +1,26 @@
+/**
+ * The TemperatureStatsReducer class merges the partial TemperatureStats of each year.
+ * It is used both as the combiner and as the reducer of the temperature statistics job.
+ * @author Ruta Deshpande
+ * Email id - rutasurd@andrew.cmu.edu
+ * Andrew id - rutasurd
+ */
+package edu.cmu.andrew.student032;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+
+public class TemperatureStatsReducer extends Reducer<Text, TemperatureStats, Text, TemperatureStats> {
+    private final TemperatureStats result = new TemperatureStats();
+
+    @Override
+    public void reduce(Text key, Iterable<TemperatureStats> values, Context context) throws IOException, InterruptedException {
+        result.clear();
+        for (TemperatureStats value : values) {
+            result.merge(value);
+        }
+        context.write(key, result);
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * The YearTemperatureMapper class is the mapper of the new API temperature jobs, MaxTemperatureJob
+ * and MinTemperatureJob. It emits the year and the air temperature, in tenths of a degree Celsius,
+ * of every valid NCDC record, and counts the records it skips in the Readings counters.
+ * @author Ruta Deshpande
+ * Email id - rutasurd@andrew.cmu.edu
+ * Andrew id - rutasurd
+ */
+package edu.cmu.andrew.student032;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+public class YearTemperatureMapper extends Mapper<LongWritable, Text, Text, IntWritable> {
+    /**
+     * The counters of the records read by the mapper.
+     */
+    public enum Readings {
+        VALID, MISSING, BAD_QUALITY, MALFORMED
+    }
+
+    private final NcdcRecordParser parser = new NcdcRecordParser();
+    private final Text year = new Text();
+    private final IntWritable airTemperature = new IntWritable();
+
+    @Override
+    public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+        if (!parser.parse(value)) {
+            context.getCounter(Readings.MALFORMED).increment(1);
+        } else if (parser.isMissingTemperature()) {
+            context.getCounter(Readings.MISSING).increment(1);
+        } else if (!parser.isGoodQuality()) {
+            context.getCounter(Readings.BAD_QUALITY).increment(1);
+        } else {
+            context.getCounter(Readings.VALID).increment(1);
+            parser.copyYear(year);
+            airTemperature.set(parser.getAirTemperature());
+            context.write(year, airTemperature);
+        }
+    }
+}
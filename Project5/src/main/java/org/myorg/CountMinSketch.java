@@ -0,0 +1,69 @@
+/**
+ * CountMinSketch estimates how often each token occurs in a fixed amount of memory.
+ * Each of the depth rows counts every token in one of width cells chosen by a hash,
+ * and the estimate is the smallest of those cells. Estimates are never too low,
+ * and are too high by at most about 2/width of the total count with high probability.
+ */
+package org.myorg;
+
+public class CountMinSketch {
+    private final int depth;
+    private final int width;
+    private final long[] cells;
+
+    /**
+     * @param depth the number of rows, each with its own hash function
+     * @param width the number of cells per row
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || width <= 0) {
+            throw new IllegalArgumentException("Depth and width must be positive: " + depth + ", " + width);
+        }
+        this.depth = depth;
+        this.width = width;
+        this.cells = new long[depth * width];
+    }
+
+    /**
+     * Adds to the count of a token and returns its new estimated count.
+     * @param bytes the array holding the token
+     * @param offset the index of the first byte of the token
+     * @param length the number of bytes of the token
+     * @param delta the amount to be added
+     * @return the estimated count of the token after adding delta
+     */
+    public long add(byte[] bytes, int offset, int length, long delta) {
+        long hash = hash(bytes, offset, length);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int cell = row * width + ((hash1 + row * hash2) & Integer.MAX_VALUE) % width;
+            cells[cell] += delta;
+            estimate = Math.min(estimate, cells[cell]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Estimates the count of a token.
+     * @param bytes the array holding the token
+     * @param offset the index of the first byte of the token
+     * @param length the number of bytes of the token
+     * @return the estimated count, which is at least the real count
+     */
+    public long estimate(byte[] bytes, int offset, int length) {
+        return add(bytes, offset, length, 0);
+    }
+
+    private static long hash(byte[] bytes, int offset, int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ (bytes[i] & 0xff)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,230 @@
+// ======================= PatternFinder.java ==========================================
+
+/**
+ * PatternFinder is a Hadoop MapReduce program that prints the words containing "cool".
+ * To run the program, specify the input and output paths as command line arguments.
+ * The output will be a text file with words containing "cool"
+ * Other patterns, possibly thousands of them, can be given with findpattern.patterns.file or
+ * findpattern.patterns; they are all matched in a single scan of each word. A regular expression
+ * can be added with findpattern.regex.
+ * @author - Ruta Deshpande
+ * Email - rutasurd@andrew.cmu.edu
+ * Andrew id - rutasurd
+ */
+package org.myorg;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import org.apache.hadoop.conf.*;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.*;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.*;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+
+public class FindPattern extends Configured implements Tool {
+    // File with one pattern per line, matched as a substring of each word ignoring case
+    public static final String PATTERNS_FILE_KEY = "findpattern.patterns.file";
+    // Comma separated patterns, matched like the ones in the patterns file
+    public static final String PATTERNS_KEY = "findpattern.patterns";
+    // Optional regular expression that a word matches if it is found anywhere in the word
+    public static final String REGEX_KEY = "findpattern.regex";
+    // Number of recently written matches each mapper remembers so it does not write them again, 0 to disable
+    public static final String DEDUP_CAPACITY_KEY = "findpattern.dedup.capacity";
+    public static final int DEFAULT_DEDUP_CAPACITY = 10000;
+    // Set to true to skip the reduce phase and merge the distinct matches on the driver
+    public static final String MAP_ONLY_KEY = "findpattern.maponly";
+
+    /**
+     * This class extends the Hadoop Mapper class and overrides the map method.
+     * The map method reads input line by line, tokenizes it, and gives out each letter as the key with the value of 1.
+     * The output of this mapper will be intermediate key-value pairs.
+     */
+    public static class FindPatternMapper extends Mapper<Object, Text, Text, NullWritable> {
+        private final static NullWritable nullWritable = NullWritable.get();
+        private Text word = new Text();
+        private WordTokenizer tokenizer;
+        private PatternMatcher matcher;
+        private Pattern regex;
+        private Map<Text, Boolean> written;
+
+        @Override
+        protected void setup(Context context) throws IOException {
+            Configuration conf = context.getConfiguration();
+            int dedupCapacity = conf.getInt(DEDUP_CAPACITY_KEY, DEFAULT_DEDUP_CAPACITY);
+            if (dedupCapacity > 0) {
+                // Least recently matched words are forgotten first, they may then be written again
+                written = new LinkedHashMap<Text, Boolean>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Text, Boolean> eldest) {
+                        return size() > dedupCapacity;
+                    }
+                };
+            }
+            tokenizer = WordTokenizer.fromConf(conf);
+            matcher = new PatternMatcher(readPatterns(conf));
+            String expression = conf.get(REGEX_KEY);
+            regex = expression == null || expression.isEmpty() ? null : Pattern.compile(expression);
+        }
+
+        public void map(Object key, Text value, Context context
+        ) throws IOException, InterruptedException {
+            tokenizer.reset(value.getBytes(), 0, value.getLength());
+            while (tokenizer.next()) {
+                byte[] data = tokenizer.tokenBytes();
+                word.set(data, tokenizer.tokenOffset(), tokenizer.length());
+                if (matcher.matches(data, tokenizer.tokenOffset(), tokenizer.length())
+                        || (regex != null && regex.matcher(word.toString()).find())) {
+                    if (written != null) {
+                        if (written.get(word) != null) {
+                            continue;
+                        }
+                        written.put(new Text(word), Boolean.TRUE);
+                    }
+                    context.write(word, nullWritable);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the patterns to search for: one per line from the file named by findpattern.patterns.file,
+     * plus the comma separated findpattern.patterns. Without either setting the pattern is "cool".
+     */
+    static List<String> readPatterns(Configuration conf) throws IOException {
+        List<String> patterns = new ArrayList<>();
+        String file = conf.get(PATTERNS_FILE_KEY);
+        if (file != null) {
+            Path path = new Path(file);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(path.getFileSystem(conf).open(path), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.trim().isEmpty()) {
+                        patterns.add(line.trim());
+                    }
+                }
+            }
+        }
+        patterns.addAll(conf.getTrimmedStringCollection(PATTERNS_KEY));
+        if (file == null && conf.get(PATTERNS_KEY) == null && conf.get(REGEX_KEY) == null) {
+            patterns.add("cool");
+        }
+        return patterns;
+    }
+
+    /**
+     * This class extends the Hadoop Reducer class and overrides the reduce method.
+     * The reduce method receives each matching word once and writes it once, so it is also used as the combiner.
+     * The output of this reducer will be the final key-value pairs.
+     */
+    public static class FindPatternReducer extends Reducer<Text, NullWritable, Text, NullWritable>
+    {
+        public void reduce(Text key, Iterable<NullWritable> values, Context context) throws IOException, InterruptedException
+        {
+            context.write(key, NullWritable.get());
+        }
+    }
+    /**
+     * This method configures the job, sets input and output paths, mapper and reducer classes, and input and output formats.
+     * The job is then submitted to the Hadoop cluster, and the method returns the exit code for the job.
+     */
+    public int run(String[] args) throws Exception  {
+
+        Job job = new Job(getConf());
+        job.setJarByClass(FindPattern.class);
+        job.setJobName("findpattern");
+
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(NullWritable.class);
+
+        job.setMapperClass(FindPatternMapper.class);
+        job.setCombinerClass(FindPatternReducer.class);
+        job.setReducerClass(FindPatternReducer.class);
+
+
+        job.setInputFormatClass(TextInputFormat.class);
+        job.setOutputFormatClass(TextOutputFormat.class);
+
+        if (getConf().getBoolean(MAP_ONLY_KEY, false)) {
+            return runMapOnly(job, new Path(args[0]), new Path(args[1]));
+        }
+
+        FileInputFormat.setInputPaths(job, new Path(args[0]));
+        FileOutputFormat.setOutputPath(job, new Path(args[1]));
+
+        Path partitionFile = new Path(args[1] + "_partitions");
+        boolean sampled = getConf().getBoolean(SkewAwarePartitioning.ENABLED_KEY, false)
+                && SkewAwarePartitioning.configure(job, partitionFile);
+
+        boolean success = job.waitForCompletion(true);
+        if (sampled) {
+            // only the file written by configure(), never one the user had
+            partitionFile.getFileSystem(getConf()).delete(partitionFile, false);
+        }
+        return success ? 0: 1;
+    }
+
+    /**
+     * This method runs the job without reducers, writing the matches of each mapper to a temporary directory.
+     * The driver then merges them into the sorted distinct matches in the output directory,
+     * which is cheaper than a shuffle when there are only a few distinct matches.
+     */
+    private int runMapOnly(Job job, Path input, Path output) throws Exception {
+        FileSystem fs = output.getFileSystem(getConf());
+        if (fs.exists(output)) {
+            System.err.println("Output directory " + output + " already exists");
+            return 1;
+        }
+        Path matches = new Path(output + "_matches");
+        job.setNumReduceTasks(0);
+        FileInputFormat.setInputPaths(job, input);
+        FileOutputFormat.setOutputPath(job, matches);
+        if (!job.waitForCompletion(true)) {
+            return 1;
+        }
+
+        Set<Text> distinct = new TreeSet<>();
+        for (FileStatus status : fs.globStatus(new Path(matches, "part-m-*"))) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(status.getPath()), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    distinct.add(new Text(line));
+                }
+            }
+        }
+        try (Writer writer = new OutputStreamWriter(fs.create(new Path(output, "part-r-00000")), StandardCharsets.UTF_8)) {
+            for (Text word : distinct) {
+                writer.write(word + "\n");
+            }
+        }
+        fs.delete(matches, true);
+        return 0;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // TODO Auto-generated method stub
+        int result = ToolRunner.run(new FindPattern(), args);
+        System.exit(result);
+    }
+
+}
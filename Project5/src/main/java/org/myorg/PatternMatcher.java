@@ -0,0 +1,162 @@
+/**
+ * PatternMatcher checks whether a word contains any of a set of patterns, ignoring ASCII case.
+ * It builds an Aho-Corasick automaton over the UTF-8 bytes of the lower-cased patterns, so a
+ * word is scanned once, byte by byte, no matter how many patterns there are, and the word
+ * itself is never lower-cased or copied.
+ */
+package org.myorg;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+public class PatternMatcher {
+    private static final int ROOT = 0;
+    // Maps every byte to its lower-case ASCII equivalent
+    private static final byte[] FOLD = new byte[256];
+    static {
+        for (int c = 0; c < 256; c++) {
+            FOLD[c] = (byte) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+        }
+    }
+
+    private final int[] rootTransitions = new int[256];
+    // Sorted byte labels and target states of the transitions of every state
+    private final byte[][] labels;
+    private final int[][] targets;
+    private final int[] failure;
+    private final boolean[] accepting;
+    private final int numPatterns;
+
+    /**
+     * Builds the automaton for a set of patterns. Empty patterns are ignored.
+     * @param patterns the patterns to be searched for
+     */
+    public PatternMatcher(Collection<String> patterns) {
+        List<Map<Byte, Integer>> children = new ArrayList<>();
+        List<Boolean> isAccepting = new ArrayList<>();
+        children.add(new TreeMap<>());
+        isAccepting.add(false);
+        int count = 0;
+        for (String pattern : patterns) {
+            byte[] bytes = pattern.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length == 0) {
+                continue;
+            }
+            int state = ROOT;
+            for (byte b : bytes) {
+                Byte label = FOLD[b & 0xff];
+                Integer next = children.get(state).get(label);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    isAccepting.add(false);
+                    children.get(state).put(label, next);
+                }
+                state = next;
+            }
+            isAccepting.set(state, true);
+            count++;
+        }
+        numPatterns = count;
+
+        int numStates = children.size();
+        labels = new byte[numStates][];
+        targets = new int[numStates][];
+        accepting = new boolean[numStates];
+        for (int state = 0; state < numStates; state++) {
+            Map<Byte, Integer> transitions = children.get(state);
+            labels[state] = new byte[transitions.size()];
+            targets[state] = new int[transitions.size()];
+            int i = 0;
+            for (Map.Entry<Byte, Integer> transition : transitions.entrySet()) {
+                labels[state][i] = transition.getKey();
+                targets[state][i] = transition.getValue();
+                i++;
+            }
+            accepting[state] = isAccepting.get(state);
+        }
+        Arrays.fill(rootTransitions, ROOT);
+        for (int i = 0; i < labels[ROOT].length; i++) {
+            rootTransitions[labels[ROOT][i] & 0xff] = targets[ROOT][i];
+        }
+
+        // Breadth-first, so the failure state of a state's parent is always known
+        failure = new int[numStates];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[ROOT]) {
+            failure[child] = ROOT;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < labels[state].length; i++) {
+                int child = targets[state][i];
+                failure[child] = next(failure[state], labels[state][i] & 0xff);
+                accepting[child] |= accepting[failure[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * @return the number of non-empty patterns
+     */
+    public int size() {
+        return numPatterns;
+    }
+
+    /**
+     * Checks whether the bytes [offset, offset + length) contain any of the patterns, ignoring ASCII case.
+     * @param bytes the array holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes of the word
+     * @return whether at least one pattern occurs in the word
+     */
+    public boolean matches(byte[] bytes, int offset, int length) {
+        if (numPatterns == 0) {
+            return false;
+        }
+        int state = ROOT;
+        for (int i = offset; i < offset + length; i++) {
+            state = next(state, FOLD[bytes[i] & 0xff] & 0xff);
+            if (accepting[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Follows failure links until a state has a transition on the byte
+    private int next(int state, int b) {
+        while (state != ROOT) {
+            int i = find(labels[state], (byte) b);
+            if (i >= 0) {
+                return targets[state][i];
+            }
+            state = failure[state];
+        }
+        return rootTransitions[b];
+    }
+
+    private static int find(byte[] stateLabels, byte b) {
+        int low = 0;
+        int high = stateLabels.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (stateLabels[mid] < b) {
+                low = mid + 1;
+            } else if (stateLabels[mid] > b) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
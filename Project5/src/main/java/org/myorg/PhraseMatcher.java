@@ -0,0 +1,73 @@
+/**
+ * PhraseMatcher checks whether lines contain a word or a phrase with the rules of the word search of
+ * ShakespeareAnalytics and its PositionalIndex: whole words that follow each other, regardless of case
+ * and of the punctuation around them.
+ * A matcher keeps its tokenizer, so it is not thread safe; use one per thread.
+ */
+package org.myorg;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PhraseMatcher {
+    private final WordTokenizer tokenizer = tokenizer();
+    private final List<String> phrase;
+
+    /**
+     * @param query the word or phrase to be searched for
+     */
+    public PhraseMatcher(String query) {
+        this.phrase = words(query, tokenizer);
+    }
+
+    /**
+     * @return the normalized words of the query, empty if it has none, which matches no line
+     */
+    public List<String> getPhrase() {
+        return phrase;
+    }
+
+    public boolean matches(String line) {
+        List<String> lineWords = words(line, tokenizer);
+        return containsPhrase(lineWords.toArray(new String[lineWords.size()]), phrase);
+    }
+
+    /**
+     * @return the tokenizer that finds the words of the lines and of the queries
+     */
+    public static WordTokenizer tokenizer() {
+        return new WordTokenizer(WordTokenizer.DEFAULT_DELIMITERS, true, true);
+    }
+
+    /**
+     * @return the normalized words of a query or line
+     */
+    public static List<String> words(String text, WordTokenizer tokenizer) {
+        List<String> words = new ArrayList<>();
+        tokenizer.reset(text);
+        while (tokenizer.next()) {
+            words.add(tokenizer.token());
+        }
+        return words;
+    }
+
+    /**
+     * @param words the normalized words of a line
+     * @param phrase the normalized words of a query
+     * @return whether the words of the query follow each other in the line
+     */
+    public static boolean containsPhrase(String[] words, List<String> phrase) {
+        if (phrase.isEmpty()) {
+            return false;
+        }
+        for (int start = 0; start + phrase.size() <= words.length; start++) {
+            int i = 0;
+            while (i < phrase.size() && words[start + i].equals(phrase.get(i))) {
+                i++;
+            }
+            if (i == phrase.size()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * ResultCache keeps the results of recent queries, so a repeated query is answered without computing it again.
+ * The cache is bounded by the total weight of its results, e.g. their length, and evicts the least
+ * recently used results first. A result is dropped when it is older than the time to live, and all
+ * results are dropped when the version of the data they were computed from changes.
+ * Keys should be normalized by the caller, e.g. with round(), so equivalent queries share a result.
+ * The methods are synchronized, but results are computed outside the lock: two threads that miss the
+ * same key at the same time both compute it, and the last one is kept.
+ */
+package org.myorg;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+public class ResultCache<K, V> {
+    private final long maxWeight;
+    private final long timeToLiveNanos;
+    private final ToLongFunction<? super V> weigher;
+    // in access order, so the first entry is the least recently used one
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private Object version;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    /**
+     * @param maxWeight the largest total weight of the results, 0 to cache nothing
+     * @param timeToLiveMillis how long a result is kept, 0 to keep it until it is evicted
+     * @param weigher the weight of a result, at least 1
+     */
+    public ResultCache(long maxWeight, long timeToLiveMillis, ToLongFunction<? super V> weigher) {
+        if (maxWeight < 0 || timeToLiveMillis < 0) {
+            throw new IllegalArgumentException("maxWeight and timeToLiveMillis must not be negative");
+        }
+        this.maxWeight = maxWeight;
+        this.timeToLiveNanos = timeToLiveMillis * 1000000;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Creates a cache of at most maxEntries results.
+     */
+    public ResultCache(int maxEntries, long timeToLiveMillis) {
+        this(maxEntries, timeToLiveMillis, value -> 1);
+    }
+
+    /**
+     * Returns the result of a query, computing and keeping it if it is not in the cache.
+     * @param key the normalized query
+     * @param version the version of the data, e.g. the length and modification time of a file; when
+     *                it differs from the version of the previous call, all results are dropped
+     * @param compute computes the result
+     */
+    public V get(K key, Object version, Supplier<V> compute) {
+        V value = lookup(key, version);
+        if (value == null) {
+            value = compute.get();
+            put(key, version, value);
+        }
+        return value;
+    }
+
+    private synchronized V lookup(K key, Object version) {
+        validate(version);
+        Entry<V> entry = entries.get(key);
+        if (entry != null && expired(entry, System.nanoTime())) {
+            remove(key, entry);
+            expirations++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    private synchronized void put(K key, Object version, V value) {
+        if (!version.equals(this.version)) {
+            // the data changed while the result was computed
+            return;
+        }
+        long valueWeight = Math.max(1, weigher.applyAsLong(value));
+        if (valueWeight > maxWeight) {
+            return;
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, valueWeight, System.nanoTime()));
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += valueWeight;
+        long now = System.nanoTime();
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight) {
+            Entry<V> entry = eldest.next().getValue();
+            eldest.remove();
+            weight -= entry.weight;
+            if (expired(entry, now)) {
+                expirations++;
+            } else {
+                evictions++;
+            }
+        }
+    }
+
+    private void validate(Object version) {
+        if (!version.equals(this.version)) {
+            if (this.version != null) {
+                invalidations += entries.size();
+            }
+            entries.clear();
+            weight = 0;
+            this.version = version;
+        }
+    }
+
+    private boolean expired(Entry<V> entry, long now) {
+        return timeToLiveNanos > 0 && now - entry.created > timeToLiveNanos;
+    }
+
+    private void remove(K key, Entry<V> entry) {
+        entries.remove(key);
+        weight -= entry.weight;
+    }
+
+    /**
+     * Drops all results.
+     */
+    public synchronized void clear() {
+        invalidations += entries.size();
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of results dropped to make room for others
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the number of results dropped because they were older than the time to live
+     */
+    public synchronized long getExpirations() {
+        return expirations;
+    }
+
+    /**
+     * @return the number of results dropped because the data changed or the cache was cleared
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * @return the fraction of lookups that found their result, 0 before the first lookup
+     */
+    public synchronized double hitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d results, weight %d of %d, %d hits, %d misses (hit rate %.1f%%), "
+                        + "%d evictions, %d expirations, %d invalidations",
+                entries.size(), weight, maxWeight, hits, misses, 100 * hitRate(), evictions, expirations, invalidations);
+    }
+
+    /**
+     * Rounds a query parameter to a multiple of a precision, so nearby values share a key.
+     * @param value the parameter
+     * @param precision the precision, 0 to keep the value as it is
+     */
+    public static double round(double value, double precision) {
+        if (precision <= 0) {
+            return value;
+        }
+        return Math.round(value / precision) * precision;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long weight;
+        private final long created;
+
+        Entry(V value, long weight, long created) {
+            this.value = value;
+            this.weight = weight;
+            this.created = created;
+        }
+    }
+}
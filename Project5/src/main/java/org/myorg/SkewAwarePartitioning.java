@@ -0,0 +1,202 @@
+/**
+ * SkewAwarePartitioning balances word-keyed jobs such as WordCount and FindPattern across reducers.
+ * Before the job is submitted, it runs the job's own mapper over a sample of the input on the
+ * driver and counts how many records each key produced. It then picks key ranges that hold about
+ * the same number of sampled records and configures a TotalOrderPartitioner with them, instead of
+ * the default hash partitioner that can send several frequent words to the same reducer.
+ * Only the assignment of keys to reducers changes, so the job output stays the same.
+ * Enable it with skew.partitioner.enabled=true.
+ */
+package org.myorg;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileAlreadyExistsException;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BinaryComparable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.MapContext;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.map.WrappedMapper;
+import org.apache.hadoop.mapreduce.lib.partition.TotalOrderPartitioner;
+import org.apache.hadoop.mapreduce.task.MapContextImpl;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.hadoop.util.ReflectionUtils;
+
+public class SkewAwarePartitioning {
+    public static final String ENABLED_KEY = "skew.partitioner.enabled";
+    // Number of input splits the mapper is run over
+    public static final String SAMPLE_SPLITS_KEY = "skew.sample.splits";
+    // Number of input records read from each sampled split
+    public static final String SAMPLE_RECORDS_KEY = "skew.sample.records";
+
+    private SkewAwarePartitioning() {
+    }
+
+    /**
+     * Samples the map output of a fully configured job and sets it up to use a TotalOrderPartitioner
+     * whose ranges hold about the same number of sampled records.
+     * The job keeps its hash partitioner when it has one reducer or fewer sampled keys than reducers.
+     * @param job the job, with its mapper, input format, input paths and number of reducers already set
+     * @param partitionFile where the range boundaries are written, which must not exist; if this method
+     *                      returns true, the caller deletes it after the job
+     * @return whether the job now uses the sampled ranges, and so whether the partition file was written
+     * @throws FileAlreadyExistsException if the partition file exists
+     */
+    public static boolean configure(Job job, Path partitionFile) throws IOException, InterruptedException {
+        if (partitionFile.getFileSystem(job.getConfiguration()).exists(partitionFile)) {
+            throw new FileAlreadyExistsException("The partition file " + partitionFile + " already exists");
+        }
+        int numPartitions = job.getNumReduceTasks();
+        if (numPartitions <= 1) {
+            return false;
+        }
+        TokenCountMap sample = sampleMapOutput(job);
+        if (sample.size() < numPartitions) {
+            return false;
+        }
+
+        // Sort the sampled keys in the byte order used to sort Text keys
+        byte[] keys = sample.keyBytes();
+        Integer[] slots = new Integer[sample.size()];
+        int n = 0;
+        for (int slot = 0; slot < sample.slots(); slot++) {
+            if (sample.isUsed(slot)) {
+                slots[n++] = slot;
+            }
+        }
+        Arrays.sort(slots, (a, b) -> WritableComparator.compareBytes(keys, sample.keyOffset(a), sample.keyLength(a),
+                keys, sample.keyOffset(b), sample.keyLength(b)));
+
+        // weightBefore[i] is the number of sampled records with a key smaller than key i
+        long[] weightBefore = new long[n + 1];
+        for (int i = 0; i < n; i++) {
+            weightBefore[i + 1] = weightBefore[i] + sample.count(slots[i]);
+        }
+        long total = weightBefore[n];
+
+        Configuration conf = job.getConfiguration();
+        Text boundary = new Text();
+        try (SequenceFile.Writer writer = SequenceFile.createWriter(conf, SequenceFile.Writer.file(partitionFile),
+                SequenceFile.Writer.keyClass(Text.class), SequenceFile.Writer.valueClass(NullWritable.class))) {
+            int index = 0;
+            for (int partition = 1; partition < numPartitions; partition++) {
+                long target = total * partition / numPartitions;
+                int next = index + 1;
+                while (next < n && weightBefore[next] < target) {
+                    next++;
+                }
+                // Every partition starts at a new key and leaves at least one key for each later partition
+                index = Math.min(next, n - (numPartitions - partition));
+                boundary.set(keys, sample.keyOffset(slots[index]), sample.keyLength(slots[index]));
+                writer.append(boundary, NullWritable.get());
+            }
+        }
+        TotalOrderPartitioner.setPartitionFile(conf, partitionFile);
+        job.setPartitionerClass(TotalOrderPartitioner.class);
+        return true;
+    }
+
+    /**
+     * Runs the job's mapper over the first records of a few evenly spread input splits
+     * and counts the records written for each key.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static TokenCountMap sampleMapOutput(Job job) throws IOException, InterruptedException {
+        Configuration conf = job.getConfiguration();
+        InputFormat inputFormat;
+        Class<? extends Mapper> mapperClass;
+        try {
+            inputFormat = ReflectionUtils.newInstance(job.getInputFormatClass(), conf);
+            mapperClass = job.getMapperClass();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+        List<InputSplit> splits = inputFormat.getSplits(job);
+        int numSplits = Math.min(splits.size(), conf.getInt(SAMPLE_SPLITS_KEY, 10));
+        int maxRecords = conf.getInt(SAMPLE_RECORDS_KEY, 100000);
+
+        TokenCountMap keyCounts = new TokenCountMap();
+        RecordWriter writer = new RecordWriter<BinaryComparable, Object>() {
+            @Override
+            public void write(BinaryComparable key, Object value) {
+                keyCounts.increment(key.getBytes(), 0, key.getLength(), 1);
+            }
+
+            @Override
+            public void close(TaskAttemptContext context) {
+            }
+        };
+        for (int i = 0; i < numSplits; i++) {
+            InputSplit split = splits.get(i * splits.size() / numSplits);
+            TaskAttemptContext sampleContext = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+            RecordReader reader = new LimitedRecordReader(inputFormat.createRecordReader(split, sampleContext), maxRecords);
+            reader.initialize(split, sampleContext);
+            try {
+                MapContext mapContext = new MapContextImpl(conf, sampleContext.getTaskAttemptID(), reader, writer,
+                        null, new TaskAttemptContextImpl.DummyReporter(), split);
+                Mapper mapper = ReflectionUtils.newInstance(mapperClass, conf);
+                mapper.run(new WrappedMapper().getMapContext(mapContext));
+            } finally {
+                reader.close();
+            }
+        }
+        return keyCounts;
+    }
+
+    /**
+     * Stops reading a split after a number of records.
+     */
+    private static class LimitedRecordReader<K, V> extends RecordReader<K, V> {
+        private final RecordReader<K, V> reader;
+        private final int maxRecords;
+        private int records;
+
+        LimitedRecordReader(RecordReader<K, V> reader, int maxRecords) {
+            this.reader = reader;
+            this.maxRecords = maxRecords;
+        }
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context) throws IOException, InterruptedException {
+            reader.initialize(split, context);
+        }
+
+        @Override
+        public boolean nextKeyValue() throws IOException, InterruptedException {
+            return records++ < maxRecords && reader.nextKeyValue();
+        }
+
+        @Override
+        public K getCurrentKey() throws IOException, InterruptedException {
+            return reader.getCurrentKey();
+        }
+
+        @Override
+        public V getCurrentValue() throws IOException, InterruptedException {
+            return reader.getCurrentValue();
+        }
+
+        @Override
+        public float getProgress() throws IOException, InterruptedException {
+            return reader.getProgress();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * TokenCountMap counts tokens given as byte ranges, without creating an object per token.
+ * It is an open-addressing hash table with linear probing: the token bytes are copied once
+ * into a shared byte array and the slots only hold offsets, lengths, hashes and int counts.
+ * Mappers use it to add up counts in memory and flush them when memoryBytes() gets too large.
+ */
+package org.myorg;
+import java.util.Arrays;
+
+public class TokenCountMap {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int EMPTY = -1;
+
+    private byte[] keyData = new byte[16 * INITIAL_CAPACITY];
+    private int keyDataLength;
+    private int[] keyOffsets;
+    private int[] keyLengths;
+    private int[] hashes;
+    private int[] counts;
+    private int size;
+
+    public TokenCountMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Adds to the count of a token, inserting it if it is new.
+     * @param bytes the array holding the token
+     * @param offset the index of the first byte of the token
+     * @param length the number of bytes of the token
+     * @param delta the amount to be added
+     */
+    public void increment(byte[] bytes, int offset, int length, int delta) {
+        int hash = hash(bytes, offset, length);
+        int mask = keyOffsets.length - 1;
+        int slot = hash & mask;
+        while (keyOffsets[slot] != EMPTY) {
+            if (hashes[slot] == hash && keyEquals(slot, bytes, offset, length)) {
+                counts[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (keyDataLength + length > keyData.length) {
+            keyData = Arrays.copyOf(keyData, Math.max(keyData.length * 2, keyDataLength + length));
+        }
+        System.arraycopy(bytes, offset, keyData, keyDataLength, length);
+        keyOffsets[slot] = keyDataLength;
+        keyLengths[slot] = length;
+        hashes[slot] = hash;
+        counts[slot] = delta;
+        keyDataLength += length;
+        size++;
+        if (size * 4 > keyOffsets.length * 3) {
+            rehash();
+        }
+    }
+
+    /**
+     * @return the number of distinct tokens in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Estimates the heap used by the tokens in the map, for deciding when to flush it: their bytes and
+     * their slots, 16 bytes each at the highest load of 3/4. It counts what is in use, not the allocated
+     * arrays, which clear() keeps, so the estimate starts from 0 again after a flush.
+     * @return the approximate number of bytes used by the tokens
+     */
+    public long memoryBytes() {
+        return keyDataLength + 16L * size * 4 / 3;
+    }
+
+    /**
+     * @return the number of slots; slots from 0 to slots() - 1 can be passed to isUsed()
+     */
+    public int slots() {
+        return keyOffsets.length;
+    }
+
+    /**
+     * @param slot the slot to be checked
+     * @return whether the slot holds a token
+     */
+    public boolean isUsed(int slot) {
+        return keyOffsets[slot] != EMPTY;
+    }
+
+    /**
+     * @return the array holding the bytes of all tokens, see keyOffset() and keyLength()
+     */
+    public byte[] keyBytes() {
+        return keyData;
+    }
+
+    public int keyOffset(int slot) {
+        return keyOffsets[slot];
+    }
+
+    public int keyLength(int slot) {
+        return keyLengths[slot];
+    }
+
+    public int count(int slot) {
+        return counts[slot];
+    }
+
+    /**
+     * Removes all tokens but keeps the allocated arrays for reuse.
+     */
+    public void clear() {
+        Arrays.fill(keyOffsets, EMPTY);
+        keyDataLength = 0;
+        size = 0;
+    }
+
+    private void allocate(int capacity) {
+        keyOffsets = new int[capacity];
+        Arrays.fill(keyOffsets, EMPTY);
+        keyLengths = new int[capacity];
+        hashes = new int[capacity];
+        counts = new int[capacity];
+    }
+
+    private void rehash() {
+        int[] oldOffsets = keyOffsets;
+        int[] oldLengths = keyLengths;
+        int[] oldHashes = hashes;
+        int[] oldCounts = counts;
+        allocate(oldOffsets.length * 2);
+        int mask = keyOffsets.length - 1;
+        for (int i = 0; i < oldOffsets.length; i++) {
+            if (oldOffsets[i] == EMPTY) {
+                continue;
+            }
+            int slot = oldHashes[i] & mask;
+            while (keyOffsets[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keyOffsets[slot] = oldOffsets[i];
+            keyLengths[slot] = oldLengths[i];
+            hashes[slot] = oldHashes[i];
+            counts[slot] = oldCounts[i];
+        }
+    }
+
+    private boolean keyEquals(int slot, byte[] bytes, int offset, int length) {
+        if (keyLengths[slot] != length) {
+            return false;
+        }
+        int keyOffset = keyOffsets[slot];
+        for (int i = 0; i < length; i++) {
+            if (keyData[keyOffset + i] != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = 0x811c9dc5;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ (bytes[i] & 0xff)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * TopK keeps the k words with the highest counts seen so far, using a min-heap of size k.
+ * Memory stays bounded by k no matter how many words are offered.
+ * Ties are broken by the word, so the result does not depend on the order of the input.
+ */
+package org.myorg;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+public class TopK {
+    /**
+     * A word and its count.
+     */
+    public static class Entry {
+        private final String word;
+        private final long count;
+
+        public Entry(String word, long count) {
+            this.word = word;
+            this.count = count;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    // Orders from the least to the most frequent word
+    private static final Comparator<Entry> ASCENDING = Comparator.comparingLong(Entry::getCount)
+            .thenComparing(Entry::getWord, Comparator.reverseOrder());
+
+    private final int k;
+    private final PriorityQueue<Entry> heap;
+
+    public TopK(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.k = k;
+        this.heap = new PriorityQueue<>(k, ASCENDING);
+    }
+
+    /**
+     * Checks whether a count could enter the top k, so callers can skip creating the word String.
+     * @param count the count to be checked
+     * @return false if offering a word with this count would certainly not change the top k
+     */
+    public boolean accepts(long count) {
+        return heap.size() < k || count >= heap.peek().getCount();
+    }
+
+    /**
+     * Offers a word, which is kept if it is among the k most frequent words seen so far.
+     * @param word the word
+     * @param count the count of the word
+     */
+    public void offer(String word, long count) {
+        if (!accepts(count)) {
+            return;
+        }
+        heap.add(new Entry(word, count));
+        if (heap.size() > k) {
+            heap.poll();
+        }
+    }
+
+    /**
+     * @return the kept words, from the most to the least frequent
+     */
+    public List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(heap);
+        entries.sort(Collections.reverseOrder(ASCENDING));
+        return entries;
+    }
+}
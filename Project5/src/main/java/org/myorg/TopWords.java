@@ -0,0 +1,300 @@
+/**
+ * TopWords is a Hadoop MapReduce program that finds the k most frequent words in a text input file.
+ * It reuses the WordCount mappers and combiner, but each reducer only keeps its k most frequent words
+ * in a bounded min-heap and writes them in cleanup. The driver then merges the per-reducer heaps,
+ * so the full vocabulary is never written out.
+ * To run the program, specify the input and output paths as command line arguments.
+ * The output will be a text file with the k most frequent words and their counts, most frequent first.
+ *
+ * With topwords.heavyhitters=true the mappers only send their local heavy hitters, found with a
+ * Count-Min sketch and a bounded set of candidates. This is faster but the counts are estimates.
+ */
+package org.myorg;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.conf.*;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.util.*;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.*;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+
+public class TopWords extends Configured implements Tool {
+    public static final String K_KEY = "topwords.k";
+    public static final int DEFAULT_K = 1000;
+    public static final String HEAVY_HITTERS_KEY = "topwords.heavyhitters";
+    // Number of candidates each heavy hitters mapper keeps, defaults to 4 * k
+    public static final String CANDIDATES_KEY = "topwords.heavyhitters.candidates";
+    public static final String SKETCH_DEPTH_KEY = "topwords.heavyhitters.sketch.depth";
+    public static final String SKETCH_WIDTH_KEY = "topwords.heavyhitters.sketch.width";
+
+    /**
+     * This mapper counts every token in a Count-Min sketch and keeps the tokens with the highest
+     * estimated counts as candidates. Only the candidates and their estimated counts are written, in cleanup.
+     */
+    public static class HeavyHittersMapper extends Mapper<LongWritable, Text, Text, IntWritable> {
+        private final Text word = new Text();
+        private final IntWritable count = new IntWritable();
+        private WordTokenizer tokenizer;
+        private CountMinSketch sketch;
+        private CandidateHeap candidates;
+
+        @Override
+        protected void setup(Context context) {
+            Configuration conf = context.getConfiguration();
+            tokenizer = WordTokenizer.fromConf(conf);
+            sketch = new CountMinSketch(conf.getInt(SKETCH_DEPTH_KEY, 4), conf.getInt(SKETCH_WIDTH_KEY, 1 << 16));
+            candidates = new CandidateHeap(conf.getInt(CANDIDATES_KEY, 4 * conf.getInt(K_KEY, DEFAULT_K)));
+        }
+
+        @Override
+        public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+            tokenizer.reset(value.getBytes(), 0, value.getLength());
+            while (tokenizer.next()) {
+                byte[] data = tokenizer.tokenBytes();
+                long estimate = sketch.add(data, tokenizer.tokenOffset(), tokenizer.length(), 1);
+                word.set(data, tokenizer.tokenOffset(), tokenizer.length());
+                candidates.offer(word, estimate);
+            }
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            for (int i = 0; i < candidates.size(); i++) {
+                count.set((int) Math.min(Integer.MAX_VALUE, candidates.count(i)));
+                context.write(candidates.word(i), count);
+            }
+        }
+    }
+
+    /**
+     * The candidates of HeavyHittersMapper in a min-heap of their estimated counts, with an index from
+     * each word to its position in the heap. The estimate of a word never decreases, so a candidate
+     * that is seen again moves down the heap, and the smallest candidate is always at the root.
+     * Updating a candidate and evicting the smallest one take O(log capacity).
+     */
+    static class CandidateHeap {
+        private final Text[] words;
+        private final long[] counts;
+        private final Map<Text, Integer> positions;
+        private int size;
+
+        CandidateHeap(int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("capacity must be positive: " + capacity);
+            }
+            words = new Text[capacity];
+            counts = new long[capacity];
+            positions = new HashMap<>(capacity * 4 / 3 + 1);
+        }
+
+        /**
+         * Updates the estimate of a candidate, or adds the word if there is room or it has a higher
+         * estimate than the smallest candidate, which is then evicted.
+         * @param word the word, copied if it is kept
+         * @param estimate the estimated count of the word, never lower than a previous one
+         */
+        void offer(Text word, long estimate) {
+            Integer position = positions.get(word);
+            if (position != null) {
+                counts[position] = estimate;
+                siftDown(position);
+            } else if (size < words.length) {
+                Text copy = new Text(word);
+                words[size] = copy;
+                counts[size] = estimate;
+                positions.put(copy, size);
+                siftUp(size++);
+            } else if (estimate > counts[0]) {
+                positions.remove(words[0]);
+                // reuse the evicted Text, its key was just removed from the index
+                words[0].set(word);
+                counts[0] = estimate;
+                positions.put(words[0], 0);
+                siftDown(0);
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        Text word(int i) {
+            return words[i];
+        }
+
+        long count(int i) {
+            return counts[i];
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (counts[parent] <= counts[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && counts[left] < counts[smallest]) {
+                    smallest = left;
+                }
+                if (right < size && counts[right] < counts[smallest]) {
+                    smallest = right;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            Text word = words[i];
+            words[i] = words[j];
+            words[j] = word;
+            long count = counts[i];
+            counts[i] = counts[j];
+            counts[j] = count;
+            positions.put(words[i], i);
+            positions.put(words[j], j);
+        }
+    }
+
+    /**
+     * This reducer sums the counts of each word like WordCountReducer, but only keeps the k most
+     * frequent words in a min-heap and writes them, most frequent first, in cleanup.
+     */
+    public static class TopWordsReducer extends Reducer<Text, IntWritable, Text, IntWritable> {
+        private final Text word = new Text();
+        private final IntWritable count = new IntWritable();
+        private TopK topK;
+
+        @Override
+        protected void setup(Context context) {
+            topK = new TopK(context.getConfiguration().getInt(K_KEY, DEFAULT_K));
+        }
+
+        @Override
+        public void reduce(Text key, Iterable<IntWritable> values, Context context) {
+            long sum = 0;
+            for (IntWritable value : values) {
+                sum += value.get();
+            }
+            if (topK.accepts(sum)) {
+                topK.offer(key.toString(), sum);
+            }
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException {
+            for (TopK.Entry entry : topK.entries()) {
+                word.set(entry.getWord());
+                count.set((int) Math.min(Integer.MAX_VALUE, entry.getCount()));
+                context.write(word, count);
+            }
+        }
+    }
+
+    /**
+     * This method runs the job that writes the top k words of each reducer to a temporary directory,
+     * then merges them into the output directory on the driver and deletes the temporary directory.
+     */
+    public int run(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: TopWords <input path> <output path>");
+            return -1;
+        }
+        Configuration conf = getConf();
+        int k = conf.getInt(K_KEY, DEFAULT_K);
+        Path output = new Path(args[1]);
+        Path heaps = new Path(args[1] + "_heaps");
+        FileSystem fs = output.getFileSystem(conf);
+        if (fs.exists(output)) {
+            System.err.println("Output directory " + output + " already exists");
+            return 1;
+        }
+
+        Job job = Job.getInstance(conf);
+        job.setJarByClass(TopWords.class);
+        job.setJobName("topwords");
+
+        job.setOutputKeyClass(Text.class);
+        job.setOutputValueClass(IntWritable.class);
+
+        if (conf.getBoolean(HEAVY_HITTERS_KEY, false)) {
+            job.setMapperClass(HeavyHittersMapper.class);
+        } else if (conf.getBoolean(WordCount.IN_MAPPER_KEY, false)) {
+            job.setMapperClass(WordCount.WordCountInMapperMap.class);
+        } else {
+            job.setMapperClass(WordCount.WordCountMap.class);
+        }
+        job.setCombinerClass(WordCount.WordCountReducer.class);
+        job.setReducerClass(TopWordsReducer.class);
+
+        job.setInputFormatClass(TextInputFormat.class);
+        job.setOutputFormatClass(TextOutputFormat.class);
+
+        FileInputFormat.setInputPaths(job, new Path(args[0]));
+        FileOutputFormat.setOutputPath(job, heaps);
+
+        if (!job.waitForCompletion(true)) {
+            return 1;
+        }
+        mergeHeaps(fs, heaps, new Path(output, "part-r-00000"), k);
+        fs.delete(heaps, true);
+        return 0;
+    }
+
+    /**
+     * Merges the top k words written by each reducer into the overall top k words.
+     * Every reducer output holds at most k lines, so this reads at most k lines per reducer.
+     */
+    static void mergeHeaps(FileSystem fs, Path heaps, Path result, int k) throws IOException {
+        TopK topK = new TopK(k);
+        for (FileStatus status : fs.globStatus(new Path(heaps, "part-r-*"))) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(status.getPath()), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.lastIndexOf('\t');
+                    topK.offer(line.substring(0, tab), Long.parseLong(line.substring(tab + 1)));
+                }
+            }
+        }
+        try (Writer writer = new OutputStreamWriter(fs.create(result), StandardCharsets.UTF_8)) {
+            for (TopK.Entry entry : topK.entries()) {
+                writer.write(entry.getWord() + "\t" + entry.getCount() + "\n");
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int result = ToolRunner.run(new TopWords(), args);
+        System.exit(result);
+    }
+
+}
@@ -11,7 +11,6 @@
  */
 package org.myorg;
 import java.io.IOException;
-import java.util.StringTokenizer;
 
 import org.apache.hadoop.conf.*;
 import org.apache.hadoop.fs.Path;
@@ -28,6 +27,12 @@ import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
 
 
 public class WordCount extends Configured implements Tool {
+    // Set to true to add up counts inside each mapper with WordCountInMapperMap
+    public static final String IN_MAPPER_KEY = "wordcount.inmapper.combining";
+    // The mapper emits and clears its counts once they take about this many bytes
+    public static final String IN_MAPPER_MEMORY_KEY = "wordcount.inmapper.memory.bytes";
+    public static final long DEFAULT_IN_MAPPER_MEMORY = 64L * 1024 * 1024;
+
     /**
      * This class extends the Hadoop Mapper class and overrides the map method.
      * The map method reads input line by line, tokenizes it, and gives out each word as the key with the value of 1.
@@ -37,20 +42,82 @@ public class WordCount extends Configured implements Tool {
     {
         private final static IntWritable one = new IntWritable(1);
         private Text word = new Text();
+        private WordTokenizer tokenizer;
+
+        @Override
+        protected void setup(Context context)
+        {
+            tokenizer = WordTokenizer.fromConf(context.getConfiguration());
+        }
 
         @Override
         public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException
         {
-            String line = value.toString();
-            StringTokenizer tokenizer = new StringTokenizer(line);
-            while(tokenizer.hasMoreTokens())
+            tokenizer.reset(value.getBytes(), 0, value.getLength());
+            while(tokenizer.next())
             {
-                word.set(tokenizer.nextToken());
+                word.set(tokenizer.tokenBytes(), tokenizer.tokenOffset(), tokenizer.length());
                 context.write(word, one);
             }
         }
     }
 
+    /**
+     * This mapper adds up the count of each word in memory instead of writing (word, 1) for every token.
+     * The counts are kept in a TokenCountMap keyed by the token bytes, and are written out
+     * whenever the map reaches the configured memory budget and once more in cleanup.
+     */
+    public static class WordCountInMapperMap extends Mapper<LongWritable, Text, Text, IntWritable>
+    {
+        private final TokenCountMap counts = new TokenCountMap();
+        private final Text word = new Text();
+        private final IntWritable count = new IntWritable();
+        private WordTokenizer tokenizer;
+        private long memoryBudget;
+
+        @Override
+        protected void setup(Context context)
+        {
+            tokenizer = WordTokenizer.fromConf(context.getConfiguration());
+            memoryBudget = context.getConfiguration().getLong(IN_MAPPER_MEMORY_KEY, DEFAULT_IN_MAPPER_MEMORY);
+        }
+
+        @Override
+        public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException
+        {
+            tokenizer.reset(value.getBytes(), 0, value.getLength());
+            while(tokenizer.next())
+            {
+                counts.increment(tokenizer.tokenBytes(), tokenizer.tokenOffset(), tokenizer.length(), 1);
+            }
+            if (counts.memoryBytes() >= memoryBudget)
+            {
+                flush(context);
+            }
+        }
+
+        @Override
+        protected void cleanup(Context context) throws IOException, InterruptedException
+        {
+            flush(context);
+        }
+
+        private void flush(Context context) throws IOException, InterruptedException
+        {
+            byte[] keys = counts.keyBytes();
+            for (int slot = 0; slot < counts.slots(); slot++)
+            {
+                if (counts.isUsed(slot))
+                {
+                    word.set(keys, counts.keyOffset(slot), counts.keyLength(slot));
+                    count.set(counts.count(slot));
+                    context.write(word, count);
+                }
+            }
+            counts.clear();
+        }
+    }
+
     /**
      * This class extends the Hadoop Reducer class and overrides the reduce method.
      * The reduce method receives key-value pairs and sums the values for each key.
@@ -82,7 +149,12 @@ public class WordCount extends Configured implements Tool {
         job.setOutputKeyClass(Text.class);
         job.setOutputValueClass(IntWritable.class);
 
-        job.setMapperClass(WordCountMap.class);
+        if (getConf().getBoolean(IN_MAPPER_KEY, false)) {
+            job.setMapperClass(WordCountInMapperMap.class);
+        } else {
+            job.setMapperClass(WordCountMap.class);
+        }
+        job.setCombinerClass(WordCountReducer.class);
         job.setReducerClass(WordCountReducer.class);
 
 
@@ -93,7 +165,15 @@ public class WordCount extends Configured implements Tool {
         FileInputFormat.setInputPaths(job, new Path(args[0]));
         FileOutputFormat.setOutputPath(job, new Path(args[1]));
 
+        Path partitionFile = new Path(args[1] + "_partitions");
+        boolean sampled = getConf().getBoolean(SkewAwarePartitioning.ENABLED_KEY, false)
+                && SkewAwarePartitioning.configure(job, partitionFile);
+
         boolean success = job.waitForCompletion(true);
+        if (sampled) {
+            // only the file written by configure(), never one the user had
+            partitionFile.getFileSystem(getConf()).delete(partitionFile, false);
+        }
         return success ? 0: 1;
     }
 
@@ -0,0 +1,224 @@
+/**
+ * WordTokenizer splits text into words without creating a String per word.
+ * It reads either the UTF-8 bytes of a Hadoop Text (pass getBytes() and getLength())
+ * or a Java String, and exposes each word as offsets into the input or as a reused buffer.
+ * One instance is meant to be created per task and reset for every record.
+ *
+ * Delimiters must be ASCII characters. Bytes of multi-byte UTF-8 characters are never
+ * ASCII, so words can be found on the raw bytes without decoding them.
+ * Words can optionally be lower-cased and stripped of leading and trailing punctuation.
+ * Both normalizations only touch ASCII characters, so byte and String input give the same words.
+ */
+package org.myorg;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.hadoop.conf.Configuration;
+
+public class WordTokenizer implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String DELIMITERS_KEY = "wordtokenizer.delimiters";
+    public static final String LOWER_CASE_KEY = "wordtokenizer.lowercase";
+    public static final String STRIP_PUNCTUATION_KEY = "wordtokenizer.strip.punctuation";
+    // Same delimiters as java.util.StringTokenizer
+    public static final String DEFAULT_DELIMITERS = " \t\n\r\f";
+
+    private final boolean[] delimiter = new boolean[128];
+    private final boolean lowerCase;
+    private final boolean stripPunctuation;
+
+    private transient byte[] bytes;
+    private transient CharSequence chars;
+    private transient int position;
+    private transient int limit;
+    private transient int start;
+    private transient int end;
+    private transient byte[] byteBuffer;
+    private transient char[] charBuffer;
+
+    /**
+     * Creates a tokenizer that splits on the StringTokenizer whitespace characters and does not normalize words.
+     */
+    public WordTokenizer() {
+        this(DEFAULT_DELIMITERS, false, false);
+    }
+
+    /**
+     * Creates a tokenizer with the given rules.
+     * @param delimiters the ASCII characters that separate words
+     * @param lowerCase whether words are converted to lower case
+     * @param stripPunctuation whether punctuation at the start and end of words is removed
+     */
+    public WordTokenizer(String delimiters, boolean lowerCase, boolean stripPunctuation) {
+        for (int i = 0; i < delimiters.length(); i++) {
+            char c = delimiters.charAt(i);
+            if (c >= 128) {
+                throw new IllegalArgumentException("Delimiters must be ASCII characters: " + delimiters);
+            }
+            delimiter[c] = true;
+        }
+        this.lowerCase = lowerCase;
+        this.stripPunctuation = stripPunctuation;
+    }
+
+    /**
+     * Creates a tokenizer from the wordtokenizer.* settings of a job configuration.
+     * @param conf the configuration to be read
+     * @return the configured tokenizer
+     */
+    public static WordTokenizer fromConf(Configuration conf) {
+        return new WordTokenizer(conf.get(DELIMITERS_KEY, DEFAULT_DELIMITERS),
+                conf.getBoolean(LOWER_CASE_KEY, false),
+                conf.getBoolean(STRIP_PUNCTUATION_KEY, false));
+    }
+
+    /**
+     * Starts tokenizing UTF-8 bytes, e.g. tokenizer.reset(text.getBytes(), 0, text.getLength()).
+     * @param bytes the bytes to be read
+     * @param offset the index of the first byte
+     * @param length the number of bytes
+     * @return this tokenizer
+     */
+    public WordTokenizer reset(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.chars = null;
+        this.position = offset;
+        this.limit = offset + length;
+        return this;
+    }
+
+    /**
+     * Starts tokenizing a String or other character sequence.
+     * @param chars the characters to be read
+     * @return this tokenizer
+     */
+    public WordTokenizer reset(CharSequence chars) {
+        this.chars = chars;
+        this.bytes = null;
+        this.position = 0;
+        this.limit = chars.length();
+        return this;
+    }
+
+    /**
+     * Moves to the next word.
+     * @return false when there are no more words in the input
+     */
+    public boolean next() {
+        while (true) {
+            while (position < limit && isDelimiter(charAt(position))) {
+                position++;
+            }
+            if (position >= limit) {
+                return false;
+            }
+            start = position;
+            while (position < limit && !isDelimiter(charAt(position))) {
+                position++;
+            }
+            end = position;
+            if (stripPunctuation) {
+                while (start < end && isPunctuation(charAt(start))) {
+                    start++;
+                }
+                while (end > start && isPunctuation(charAt(end - 1))) {
+                    end--;
+                }
+                if (start == end) {
+                    continue;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return the index of the first byte or character of the current word in the input
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * @return the index after the last byte or character of the current word in the input
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * @return the length of the current word in bytes or characters
+     */
+    public int length() {
+        return end - start;
+    }
+
+    /**
+     * Returns the bytes of the current word when tokenizing bytes.
+     * Without lower-casing this is the input array itself and the word starts at tokenOffset();
+     * otherwise the word is copied into a buffer that is reused for every word.
+     * @return the array holding the current word
+     */
+    public byte[] tokenBytes() {
+        if (!lowerCase) {
+            return bytes;
+        }
+        if (byteBuffer == null || byteBuffer.length < length()) {
+            byteBuffer = new byte[Math.max(64, length() * 2)];
+        }
+        for (int i = start; i < end; i++) {
+            byteBuffer[i - start] = (byte) toLowerCase(bytes[i]);
+        }
+        return byteBuffer;
+    }
+
+    /**
+     * @return the index of the current word in the array returned by tokenBytes()
+     */
+    public int tokenOffset() {
+        return lowerCase ? 0 : start;
+    }
+
+    /**
+     * Copies the normalized characters of the current word into a buffer that is reused for every word.
+     * The word starts at index 0 and is length() characters long.
+     * @return the buffer holding the current word
+     */
+    public char[] tokenChars() {
+        if (charBuffer == null || charBuffer.length < length()) {
+            charBuffer = new char[Math.max(64, length() * 2)];
+        }
+        for (int i = start; i < end; i++) {
+            charBuffer[i - start] = (char) (lowerCase ? toLowerCase(charAt(i)) : charAt(i));
+        }
+        return charBuffer;
+    }
+
+    /**
+     * Creates a String of the current word. Only needed when the word has to be kept.
+     * @return the current word
+     */
+    public String token() {
+        if (bytes != null) {
+            return new String(tokenBytes(), tokenOffset(), length(), StandardCharsets.UTF_8);
+        }
+        return new String(tokenChars(), 0, length());
+    }
+
+    private int charAt(int index) {
+        return bytes != null ? bytes[index] & 0xff : chars.charAt(index);
+    }
+
+    private boolean isDelimiter(int c) {
+        return c < 128 && delimiter[c];
+    }
+
+    private static boolean isPunctuation(int c) {
+        return c < 128 && !Character.isLetterOrDigit(c) && !Character.isWhitespace(c);
+    }
+
+    private static int toLowerCase(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * This class holds the metrics that ShakespeareAnalytics reports for a corpus.
+ * One instance is built per partition from that partition's lines, and the
+ * partial results are merged on the driver, so every metric comes out of a
+ * single pass over the data.
+ * Distinct words are counted exactly with a set, or approximately with a
+ * HyperLogLog sketch when a relative error is given.
+ */
+package org.example;
+import org.myorg.WordTokenizer;
+import java.io.Serializable;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+public class CorpusStats implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private long numLines;
+    private long numWords;
+    private long numSymbols;
+    private final Set<String> distinctWords;
+    private final HyperLogLog distinctWordsSketch;
+    private final BitSet distinctSymbols = new BitSet(Character.MAX_VALUE + 1);
+
+    /**
+     * Creates empty totals.
+     * @param relativeError the accepted relative error of the distinct word count, or 0 to count exactly
+     */
+    public CorpusStats(double relativeError) {
+        if (relativeError > 0) {
+            distinctWords = null;
+            distinctWordsSketch = new HyperLogLog(relativeError);
+        } else {
+            distinctWords = new HashSet<>();
+            distinctWordsSketch = null;
+        }
+    }
+
+    /**
+     * Adds one line of the corpus to the running totals.
+     * Every character is a symbol. Words only become Strings when they have to be kept in the exact distinct set.
+     * @param line the line to be added
+     * @param tokenizer the tokenizer that splits the line into words
+     */
+    public void addLine(String line, WordTokenizer tokenizer) {
+        numLines++;
+        tokenizer.reset(line);
+        while (tokenizer.next()) {
+            numWords++;
+            if (distinctWordsSketch != null) {
+                distinctWordsSketch.offer(tokenizer.tokenChars(), 0, tokenizer.length());
+            } else {
+                distinctWords.add(tokenizer.token());
+            }
+        }
+        numSymbols += line.length();
+        for (int i = 0; i < line.length(); i++) {
+            distinctSymbols.set(line.charAt(i));
+        }
+    }
+
+    /**
+     * Merges the totals of another partition into this one.
+     * @param other the partial result to be merged
+     * @return this instance, so it can be used directly in a reduce
+     */
+    public CorpusStats merge(CorpusStats other) {
+        numLines += other.numLines;
+        numWords += other.numWords;
+        numSymbols += other.numSymbols;
+        if (distinctWordsSketch != null) {
+            distinctWordsSketch.merge(other.distinctWordsSketch);
+        } else {
+            distinctWords.addAll(other.distinctWords);
+        }
+        distinctSymbols.or(other.distinctSymbols);
+        return this;
+    }
+
+    public long getNumLines() {
+        return numLines;
+    }
+
+    public long getNumWords() {
+        return numWords;
+    }
+
+    public long getNumDistinctWords() {
+        return distinctWordsSketch != null ? distinctWordsSketch.cardinality() : distinctWords.size();
+    }
+
+    public long getNumSymbols() {
+        return numSymbols;
+    }
+
+    public long getNumDistinctSymbols() {
+        return distinctSymbols.cardinality();
+    }
+
+    /**
+     * Counts the distinct letters, i.e. the distinct symbols matching [a-zA-Z].
+     * @return the number of distinct letters seen
+     */
+    public long getNumDistinctLetters() {
+        return countLetters(distinctSymbols);
+    }
+
+    /**
+     * Counts the letters [a-zA-Z] in a set of symbols.
+     * @param symbols a bit set with a bit for every symbol
+     * @return the number of letters in the set
+     */
+    public static long countLetters(BitSet symbols) {
+        return symbols.get('a', 'z' + 1).cardinality() + symbols.get('A', 'Z' + 1).cardinality();
+    }
+}
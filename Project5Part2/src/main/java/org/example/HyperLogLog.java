@@ -0,0 +1,149 @@
+/**
+ * This class is a HyperLogLog sketch for estimating the number of distinct strings.
+ * A sketch is built per partition and sketches are merged by taking the maximum of
+ * each register, so distinct counts can be estimated without shuffling the tokens.
+ * It uses 64-bit hashes and linear counting for small cardinalities, as in HyperLogLog++.
+ */
+package org.example;
+import java.io.Serializable;
+
+public class HyperLogLog implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int MIN_PRECISION = 4;
+    private static final int MAX_PRECISION = 18;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * Creates a sketch with enough registers for the requested relative error.
+     * The standard error of HyperLogLog is about 1.04 / sqrt(number of registers).
+     * @param relativeError the accepted relative standard error, e.g. 0.01 for 1%
+     */
+    public HyperLogLog(double relativeError) {
+        if (relativeError <= 0 || relativeError >= 1) {
+            throw new IllegalArgumentException("Relative error must be between 0 and 1: " + relativeError);
+        }
+        double registersNeeded = Math.pow(1.04 / relativeError, 2);
+        int p = (int) Math.ceil(Math.log(registersNeeded) / Math.log(2));
+        precision = Math.max(MIN_PRECISION, Math.min(MAX_PRECISION, p));
+        registers = new byte[1 << precision];
+    }
+
+    /**
+     * Adds a string to the sketch.
+     * @param value the string to be added
+     */
+    public void offer(CharSequence value) {
+        offer(value, 0, value.length());
+    }
+
+    /**
+     * Adds the characters [start, end) of a sequence to the sketch without creating a String.
+     * @param value the characters to be read
+     * @param start the index of the first character
+     * @param end the index after the last character
+     */
+    public void offer(CharSequence value, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        offerHash(mix(hash));
+    }
+
+    /**
+     * Adds the characters [start, end) of an array to the sketch.
+     * It gives the same result as offering the equivalent String.
+     * @param chars the characters to be read
+     * @param start the index of the first character
+     * @param end the index after the last character
+     */
+    public void offer(char[] chars, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ chars[i]) * 0x100000001b3L;
+        }
+        offerHash(mix(hash));
+    }
+
+    /**
+     * Adds the bytes [start, end) of an array to the sketch.
+     * @param bytes the bytes to be read
+     * @param start the index of the first byte
+     * @param end the index after the last byte
+     */
+    public void offer(byte[] bytes, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ (bytes[i] & 0xff)) * 0x100000001b3L;
+        }
+        offerHash(mix(hash));
+    }
+
+    private void offerHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        long rest = hash << precision;
+        int rank = Math.min(Long.numberOfLeadingZeros(rest), 64 - precision) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Merges another sketch into this one. Both sketches must have the same precision.
+     * @param other the sketch to be merged
+     * @return this sketch, so it can be used directly in a reduce
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + precision + " and " + other.precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Estimates the number of distinct values offered to this sketch and the sketches merged into it.
+     * @return the estimated cardinality
+     */
+    public long cardinality() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros); // linear counting
+        }
+        return Math.round(estimate);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16: return 0.673;
+            case 32: return 0.697;
+            case 64: return 0.709;
+            default: return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    // Finalizer from MurmurHash3, spreads the FNV hash over all 64 bits.
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,533 @@
+/**
+ * This class is a persistent inverted positional index of the lines of a corpus.
+ * For every word it stores the byte offsets of the lines that contain it and the positions of the
+ * word in each line, so a word or phrase lookup reads only the postings of its words and then
+ * seeks to the matching lines instead of scanning the corpus.
+ *
+ * Words are found like WordTokenizer with lower-casing and punctuation stripping, so a lookup
+ * matches whole words regardless of case ("art" finds "Art," but not "heart"). A query of several
+ * words is a phrase: its words must follow each other in one line.
+ *
+ * The index is written next to the corpus as &lt;corpus&gt;.idx:
+ *   magic, version, length and modification time of the corpus, number of words,
+ *   the dictionary (word, number of lines, offset and length of its postings), the postings.
+ * The postings of a word are its number of lines and, for every line, the offset of the line and
+ * the positions of the word, each delta encoded as a variable length integer.
+ * ShakespeareAnalytics builds it with -Dspark.shakespeare.mode=index; main() answers queries
+ * from the command line or stdin without starting Spark.
+ */
+package org.example;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.util.LineReader;
+import org.myorg.PhraseMatcher;
+import org.myorg.WordTokenizer;
+import scala.Tuple2;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PositionalIndex implements Closeable {
+    static final byte[] MAGIC = "SHKSPIDX".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final String EXTENSION = ".idx";
+    private static final int LINE_BUFFER_SIZE = 1024;
+
+    private final FSDataInputStream corpus;
+    private final FSDataInputStream index;
+    // the offset in the index file and the length of the postings of every word
+    private final Map<String, long[]> dictionary;
+    private final WordTokenizer tokenizer = tokenizer();
+    private final Text line = new Text();
+
+    private PositionalIndex(FSDataInputStream corpus, FSDataInputStream index, Map<String, long[]> dictionary) {
+        this.corpus = corpus;
+        this.index = index;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * @return the tokenizer that finds the words of the index and of the queries
+     */
+    static WordTokenizer tokenizer() {
+        return PhraseMatcher.tokenizer();
+    }
+
+    /**
+     * @param fileName the name of the corpus
+     * @return the path of the index of the corpus
+     */
+    static Path indexPath(String fileName) {
+        return new Path(fileName + EXTENSION);
+    }
+
+    /**
+     * Writes the index of a corpus.
+     * @param fileName the name of the corpus
+     * @param words the words of the corpus in sorted order, with their postings
+     * @param conf the configuration of the file system
+     */
+    static void write(String fileName, List<Tuple2<String, Postings>> words, Configuration conf) throws IOException {
+        Path corpusPath = new Path(fileName);
+        FileSystem fs = corpusPath.getFileSystem(conf);
+        FileStatus status = fs.getFileStatus(corpusPath);
+        FSDataOutputStream out = fs.create(indexPath(fileName), true);
+        try {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(status.getLen());
+            out.writeLong(status.getModificationTime());
+            out.writeInt(words.size());
+            long offset = 0;
+            for (Tuple2<String, Postings> word : words) {
+                out.writeUTF(word._1());
+                WritableUtils.writeVInt(out, word._2().numLines());
+                WritableUtils.writeVLong(out, offset);
+                WritableUtils.writeVInt(out, word._2().size());
+                offset += word._2().size();
+            }
+            out.writeLong(offset);
+            for (Tuple2<String, Postings> word : words) {
+                word._2().writeTo(out);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Opens the index of a corpus. Only the dictionary is loaded; the postings of a word are read
+     * from the index file when a query needs them.
+     * @param fileName the name of the corpus
+     * @param conf the configuration of the file system
+     * @return the index, or null if the corpus has none
+     * @throws IOException if the index is damaged or older than the corpus
+     */
+    public static PositionalIndex open(String fileName, Configuration conf) throws IOException {
+        Path corpusPath = new Path(fileName);
+        FileSystem fs = corpusPath.getFileSystem(conf);
+        Path indexPath = indexPath(fileName);
+        if (!fs.exists(indexPath)) {
+            return null;
+        }
+        FileStatus status = fs.getFileStatus(corpusPath);
+        Map<String, long[]> dictionary;
+        FSDataInputStream in = fs.open(indexPath);
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC) || in.readInt() != VERSION) {
+                throw new IOException(indexPath + " is not a positional index of version " + VERSION);
+            }
+            if (in.readLong() != status.getLen() || in.readLong() != status.getModificationTime()) {
+                throw new IOException(indexPath + " is older than " + fileName + ", build it again");
+            }
+            int numWords = in.readInt();
+            dictionary = new HashMap<>(numWords * 2);
+            for (int i = 0; i < numWords; i++) {
+                String word = in.readUTF();
+                WritableUtils.readVInt(in);
+                long offset = WritableUtils.readVLong(in);
+                int length = WritableUtils.readVInt(in);
+                dictionary.put(word, new long[] {offset, length});
+            }
+            in.readLong();
+            long postingsStart = in.getPos();
+            for (long[] entry : dictionary.values()) {
+                entry[0] += postingsStart;
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new PositionalIndex(fs.open(corpusPath), in, dictionary);
+    }
+
+    /**
+     * Finds the lines that contain a word or a phrase.
+     * @param query one or more words
+     * @return the byte offsets of the matching lines in the corpus, in increasing order
+     */
+    public long[] find(String query) throws IOException {
+        List<String> words = words(query, tokenizer);
+        if (words.isEmpty()) {
+            return new long[0];
+        }
+        PostingsReader[] readers = new PostingsReader[words.size()];
+        for (int i = 0; i < readers.length; i++) {
+            long[] entry = dictionary.get(words.get(i));
+            if (entry == null) {
+                return new long[0];
+            }
+            byte[] postings = new byte[(int) entry[1]];
+            index.readFully(entry[0], postings);
+            readers[i] = PostingsReader.open(postings);
+        }
+        long[] lines = new long[16];
+        int numLines = 0;
+        // intersects the line offsets of all the words, then checks the positions of the phrase
+        if (!advanceAll(readers, 0)) {
+            return new long[0];
+        }
+        while (true) {
+            long target = readers[0].offset();
+            boolean aligned = true;
+            for (PostingsReader reader : readers) {
+                if (!reader.skipTo(target)) {
+                    return Arrays.copyOf(lines, numLines);
+                }
+                if (reader.offset() != target) {
+                    target = reader.offset();
+                    aligned = false;
+                }
+            }
+            if (!aligned) {
+                if (!readers[0].skipTo(target)) {
+                    return Arrays.copyOf(lines, numLines);
+                }
+                continue;
+            }
+            if (isPhrase(readers)) {
+                if (numLines == lines.length) {
+                    lines = Arrays.copyOf(lines, numLines * 2);
+                }
+                lines[numLines++] = target;
+            }
+            if (!readers[0].next()) {
+                return Arrays.copyOf(lines, numLines);
+            }
+        }
+    }
+
+    private static boolean advanceAll(PostingsReader[] readers, int from) throws IOException {
+        for (int i = from; i < readers.length; i++) {
+            if (!readers[i].next()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPhrase(PostingsReader[] readers) {
+        int[] first = readers[0].positions();
+        for (int p = 0; p < readers[0].numPositions(); p++) {
+            int i = 1;
+            while (i < readers.length && readers[i].hasPosition(first[p] + i)) {
+                i++;
+            }
+            if (i == readers.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Prints the lines of the corpus that contain a word or a phrase.
+     * @param query one or more words
+     * @param out the stream to print to
+     * @return the number of lines printed
+     */
+    public int printLines(String query, PrintStream out) throws IOException {
+        long[] offsets = find(query);
+        for (long offset : offsets) {
+            corpus.seek(offset);
+            new LineReader(corpus, LINE_BUFFER_SIZE).readLine(line);
+            out.println(line);
+        }
+        return offsets.length;
+    }
+
+    /**
+     * Checks whether a line contains a word or a phrase, with the rules of the index.
+     * Used to search corpora that have no index.
+     * @param line the line to be checked
+     * @param query the words of the query, see words()
+     * @param tokenizer a tokenizer from tokenizer()
+     */
+    static boolean matches(String line, List<String> query, WordTokenizer tokenizer) {
+        List<String> lineWords = words(line, tokenizer);
+        return containsPhrase(lineWords.toArray(new String[lineWords.size()]), query);
+    }
+
+    /**
+     * @param words the normalized words of a line
+     * @param phrase the normalized words of a query
+     * @return whether the words of the query follow each other in the line
+     */
+    static boolean containsPhrase(String[] words, List<String> phrase) {
+        return PhraseMatcher.containsPhrase(words, phrase);
+    }
+
+    /**
+     * @return the normalized words of a query or line
+     */
+    static List<String> words(String text, WordTokenizer tokenizer) {
+        return PhraseMatcher.words(text, tokenizer);
+    }
+
+    @Override
+    public void close() throws IOException {
+        corpus.close();
+        index.close();
+    }
+
+    /**
+     * Builds the postings of the words of a partition of the corpus.
+     * @param lines the byte offsets and contents of the lines of the partition, in order
+     * @return the words of the partition with their postings
+     */
+    static List<Tuple2<String, Postings>> postings(Iterator<Tuple2<LongWritable, Text>> lines) throws IOException {
+        WordTokenizer tokenizer = tokenizer();
+        Map<String, Postings> words = new HashMap<>();
+        Map<String, int[]> linePositions = new HashMap<>();
+        while (lines.hasNext()) {
+            Tuple2<LongWritable, Text> line = lines.next();
+            linePositions.clear();
+            Text text = line._2();
+            tokenizer.reset(text.getBytes(), 0, text.getLength());
+            int position = 0;
+            while (tokenizer.next()) {
+                String word = tokenizer.token();
+                int[] positions = linePositions.get(word);
+                if (positions == null) {
+                    positions = new int[] {0, 0, 0, 0, 0};
+                } else if (positions[0] + 1 == positions.length) {
+                    positions = Arrays.copyOf(positions, positions.length * 2);
+                }
+                positions[++positions[0]] = position++;
+                linePositions.put(word, positions);
+            }
+            for (Map.Entry<String, int[]> entry : linePositions.entrySet()) {
+                Postings postings = words.get(entry.getKey());
+                if (postings == null) {
+                    postings = new Postings();
+                    words.put(entry.getKey(), postings);
+                }
+                int[] positions = entry.getValue();
+                postings.add(line._1().get(), positions, 1, positions[0]);
+            }
+        }
+        List<Tuple2<String, Postings>> result = new ArrayList<>(words.size());
+        for (Map.Entry<String, Postings> entry : words.entrySet()) {
+            result.add(new Tuple2<>(entry.getKey(), entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * The encoded postings of one word. The postings of several partitions are merged by line offset,
+     * so they can be merged in any order.
+     */
+    static class Postings implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private long lastOffset;
+        private int numLines;
+        private byte[] bytes = new byte[16];
+        private int length;
+
+        void add(long offset, int[] positions, int from, int count) throws IOException {
+            DataOutputStream out = new DataOutputStream(new Appender());
+            WritableUtils.writeVLong(out, offset - lastOffset);
+            WritableUtils.writeVInt(out, count);
+            int last = 0;
+            for (int i = from; i < from + count; i++) {
+                WritableUtils.writeVInt(out, positions[i] - last);
+                last = positions[i];
+            }
+            lastOffset = offset;
+            numLines++;
+        }
+
+        /**
+         * Interleaves the lines of both postings by offset, as reduceByKey can merge the postings of
+         * partitions that are not next to each other, e.g. those of partitions 1 and 3 before 2.
+         * @return the postings of both, which must be of different lines
+         */
+        Postings merge(Postings other) throws IOException {
+            Postings merged = new Postings();
+            PostingsReader left = new PostingsReader(bytes, 0, length, numLines);
+            PostingsReader right = new PostingsReader(other.bytes, 0, other.length, other.numLines);
+            boolean hasLeft = left.next();
+            boolean hasRight = right.next();
+            while (hasLeft || hasRight) {
+                if (hasLeft && (!hasRight || left.offset() < right.offset())) {
+                    merged.add(left.offset(), left.positions(), 0, left.numPositions());
+                    hasLeft = left.next();
+                } else {
+                    merged.add(right.offset(), right.positions(), 0, right.numPositions());
+                    hasRight = right.next();
+                }
+            }
+            return merged;
+        }
+
+        int numLines() {
+            return numLines;
+        }
+
+        /**
+         * @return the size of the postings in the index
+         */
+        int size() {
+            return WritableUtils.getVIntSize(numLines) + length;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            WritableUtils.writeVInt(out, numLines);
+            out.write(bytes, 0, length);
+        }
+
+        /**
+         * Appends the written bytes to the postings.
+         */
+        private class Appender extends OutputStream {
+            @Override
+            public void write(int b) {
+                if (length == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, length * 2);
+                }
+                bytes[length++] = (byte) b;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                for (int i = off; i < off + len; i++) {
+                    write(b[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes the postings of a word one line at a time.
+     */
+    static class PostingsReader {
+        private final DataInputStream in;
+        private final int numLines;
+        private int line;
+        private long offset;
+        private int[] positions = new int[8];
+        private int numPositions;
+
+        PostingsReader(byte[] bytes, int start, int length, int numLines) {
+            this.in = new DataInputStream(new ByteArrayInputStream(bytes, start, length));
+            this.numLines = numLines;
+        }
+
+        /**
+         * Reads postings in the format of the index, which starts with the number of lines.
+         */
+        static PostingsReader open(byte[] bytes) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            int numLines = WritableUtils.readVInt(in);
+            int start = WritableUtils.getVIntSize(numLines);
+            return new PostingsReader(bytes, start, bytes.length - start, numLines);
+        }
+
+        /**
+         * Moves to the next line.
+         * @return false after the last line
+         */
+        boolean next() throws IOException {
+            if (line == numLines) {
+                return false;
+            }
+            line++;
+            offset += WritableUtils.readVLong(in);
+            numPositions = WritableUtils.readVInt(in);
+            if (positions.length < numPositions) {
+                positions = new int[numPositions * 2];
+            }
+            int position = 0;
+            for (int i = 0; i < numPositions; i++) {
+                position += WritableUtils.readVInt(in);
+                positions[i] = position;
+            }
+            return true;
+        }
+
+        /**
+         * Moves to the first line at or after an offset.
+         * @return false if there is none
+         */
+        boolean skipTo(long target) throws IOException {
+            while (offset < target) {
+                if (!next()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long offset() {
+            return offset;
+        }
+
+        int[] positions() {
+            return positions;
+        }
+
+        int numPositions() {
+            return numPositions;
+        }
+
+        boolean hasPosition(int position) {
+            return Arrays.binarySearch(positions, 0, numPositions, position) >= 0;
+        }
+    }
+
+    /**
+     * Answers the queries given as arguments, or read from stdin one per line, with the index of a corpus.
+     * Usage: PositionalIndex &lt;corpus&gt; [query ...]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: PositionalIndex <corpus> [query ...]");
+            System.exit(-1);
+        }
+        PositionalIndex index = open(args[0], new Configuration());
+        if (index == null) {
+            System.err.println(args[0] + " has no index, build it with -Dspark.shakespeare.mode=index");
+            System.exit(1);
+        }
+        try {
+            if (args.length > 1) {
+                for (String query : Arrays.copyOfRange(args, 1, args.length)) {
+                    index.printLines(query, System.out);
+                }
+                return;
+            }
+            BufferedReader queries = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String query;
+            while ((query = queries.readLine()) != null) {
+                index.printLines(query, System.out);
+            }
+        } finally {
+            index.close();
+        }
+    }
+}
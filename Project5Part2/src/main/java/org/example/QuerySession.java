@@ -0,0 +1,188 @@
+/**
+ * This class answers many queries against one corpus with the same Spark context.
+ * The corpus is read and tokenized once and kept at the configured storage level, so each query
+ * only runs a job over the cached lines instead of starting Spark and reading the file again.
+ *
+ * Queries are read one per line, until end of input or "quit":
+ *   search &lt;words&gt;   prints the lines that contain the word or phrase (also without "search")
+ *   count &lt;words&gt;    prints the number of lines that contain the word or phrase
+ *   stats            prints the metrics of ShakespeareAnalytics, computed on the first request
+ *   cache            prints the counters of the caches of the answers
+ * Words are matched like PositionalIndex: whole words, regardless of case.
+ * The answers of search and count are kept in ResultCaches keyed by the normalized words, so repeating
+ * a query, also with other case or punctuation, does not run a job again.
+ * The time each query took is printed after its answer.
+ */
+package org.example;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.storage.StorageLevel;
+import org.myorg.ResultCache;
+import org.myorg.WordTokenizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+public class QuerySession {
+    private final String fileName;
+    private final JavaRDD<TokenizedLine> lines;
+    private final WordTokenizer statsTokenizer;
+    private final double relativeError;
+    private final WordTokenizer queryTokenizer = PositionalIndex.tokenizer();
+    private final ResultCache<List<String>, List<String>> lineCache;
+    private final ResultCache<List<String>, Long> countCache;
+    private CorpusStats stats;
+
+    /**
+     * Reads, tokenizes and caches a corpus.
+     * @param input the lines of the corpus
+     * @param fileName the name of the corpus, for the messages
+     * @param storageLevel where the tokenized lines are kept
+     * @param statsTokenizer the tokenizer of the stats query, see ShakespeareAnalytics.tokenizer()
+     * @param relativeError the relative error of the distinct word count of the stats query, or 0
+     * @param cacheSize the largest number of characters of lines kept for search queries, and of counts
+     *                  kept for count queries, 0 to not cache answers
+     * @param cacheTimeToLiveMillis how long answers are kept, 0 for the whole session
+     */
+    public QuerySession(JavaRDD<String> input, String fileName, StorageLevel storageLevel,
+                        WordTokenizer statsTokenizer, double relativeError, long cacheSize, long cacheTimeToLiveMillis) {
+        WordTokenizer tokenizer = PositionalIndex.tokenizer();
+        this.fileName = fileName;
+        this.lines = input.map(line -> new TokenizedLine(line, tokenizer)).persist(storageLevel);
+        this.statsTokenizer = statsTokenizer;
+        this.relativeError = relativeError;
+        this.lineCache = new ResultCache<>(cacheSize, cacheTimeToLiveMillis, QuerySession::length);
+        this.countCache = new ResultCache<>(cacheSize, cacheTimeToLiveMillis, count -> 1);
+    }
+
+    private static long length(List<String> lines) {
+        long length = 0;
+        for (String line : lines) {
+            length += line.length() + 1;
+        }
+        return length;
+    }
+
+    /**
+     * Reads the corpus into the cache, so the first query is as fast as the others.
+     * @return the number of lines
+     */
+    public long load() {
+        return lines.count();
+    }
+
+    /**
+     * Answers the queries of a reader until it ends or a query is "quit".
+     * @param queries the queries, one per line
+     * @param out the stream the answers are printed to
+     */
+    public void run(BufferedReader queries, PrintStream out) throws IOException {
+        String query;
+        while ((query = queries.readLine()) != null) {
+            query = query.trim();
+            if (query.isEmpty()) {
+                continue;
+            }
+            if (query.equalsIgnoreCase("quit")) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                answer(query, out);
+            } catch (RuntimeException e) {
+                out.println("Query failed: " + e.getMessage());
+            }
+            out.println("-- " + (System.nanoTime() - start) / 1000000 + " ms");
+        }
+    }
+
+    private void answer(String query, PrintStream out) {
+        int space = query.indexOf(' ');
+        String command = (space < 0 ? query : query.substring(0, space)).toLowerCase(Locale.ROOT);
+        String argument = space < 0 ? "" : query.substring(space + 1).trim();
+        switch (command) {
+            case "stats":
+                printStats(out);
+                break;
+            case "cache":
+                out.println("search: " + lineCache);
+                out.println("count: " + countCache);
+                break;
+            case "count": {
+                List<String> words = PositionalIndex.words(argument, queryTokenizer);
+                out.println(countCache.get(words, fileName, () -> matching(words).count()));
+                break;
+            }
+            case "search":
+                printLines(argument, out);
+                break;
+            default:
+                printLines(query, out);
+                break;
+        }
+    }
+
+    private JavaRDD<TokenizedLine> matching(List<String> words) {
+        return lines.filter(line -> line.contains(words));
+    }
+
+    private void printLines(String phrase, PrintStream out) {
+        List<String> words = PositionalIndex.words(phrase, queryTokenizer);
+        List<String> found = lineCache.get(words, fileName, () -> matching(words).map(TokenizedLine::getLine).collect());
+        for (String line : found) {
+            out.println(line);
+        }
+    }
+
+    private void printStats(PrintStream out) {
+        if (stats == null) {
+            WordTokenizer tokenizer = statsTokenizer;
+            double error = relativeError;
+            stats = lines.mapPartitions((Iterator<TokenizedLine> partition) -> {
+                CorpusStats partial = new CorpusStats(error);
+                while (partition.hasNext()) {
+                    partial.addLine(partition.next().getLine(), tokenizer);
+                }
+                return Collections.singletonList(partial);
+            }).reduce(CorpusStats::merge);
+        }
+        out.println("Number of lines in the file \"" + fileName + "\": " + stats.getNumLines());
+        out.println("Number of words in the file \"" + fileName + "\": " + stats.getNumWords());
+        out.println("Number of distinct words in the file \"" + fileName + "\": " + stats.getNumDistinctWords());
+        out.println("Number of symbols in the file \"" + fileName + "\": " + stats.getNumSymbols());
+        out.println("Number of distinct symbols in the file \"" + fileName + "\": " + stats.getNumDistinctSymbols());
+        out.println("Number of distinct letters in the file \"" + fileName + "\": " + stats.getNumDistinctLetters());
+    }
+
+    /**
+     * A line of the corpus with its normalized words.
+     */
+    static class TokenizedLine implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String line;
+        private final String[] words;
+
+        TokenizedLine(String line, WordTokenizer tokenizer) {
+            this.line = line;
+            List<String> lineWords = PositionalIndex.words(line, tokenizer);
+            this.words = lineWords.toArray(new String[lineWords.size()]);
+        }
+
+        String getLine() {
+            return line;
+        }
+
+        /**
+         * @return whether the words of a phrase follow each other in the line
+         */
+        boolean contains(List<String> phrase) {
+            return PositionalIndex.containsPhrase(words, phrase);
+        }
+    }
+}
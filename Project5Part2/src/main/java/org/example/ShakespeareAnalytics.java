@@ -7,13 +7,49 @@
  * Andrew id - rutasurd
  */
 package org.example;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.TextInputFormat;
 import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
-import java.util.Arrays;
+import org.apache.spark.api.java.StorageLevels;
+import org.apache.spark.storage.StorageLevel;
+import org.myorg.WordTokenizer;
+import scala.Tuple2;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Scanner;
 
 public class ShakespeareAnalytics {
+    // Set with -Dspark.shakespeare.mode=engine to compute every metric in one cached pass.
+    static final String MODE_KEY = "spark.shakespeare.mode";
+    static final String STORAGE_LEVEL_KEY = "spark.shakespeare.storageLevel";
+    static final String ENGINE_MODE = "engine";
+    // Set with -Dspark.shakespeare.distinct=approx to estimate distinct counts with HyperLogLog.
+    static final String DISTINCT_KEY = "spark.shakespeare.distinct";
+    static final String RELATIVE_ERROR_KEY = "spark.shakespeare.relativeError";
+    static final String APPROX_DISTINCT = "approx";
+    // Set with -Dspark.shakespeare.mode=index to write the PositionalIndex of the file and exit.
+    static final String INDEX_MODE = "index";
+    // Set with -Dspark.shakespeare.mode=session to answer queries from stdin, or from the file in
+    // spark.shakespeare.queries, with a QuerySession.
+    static final String SESSION_MODE = "session";
+    static final String QUERIES_KEY = "spark.shakespeare.queries";
+    // The answers of a session are cached, at most spark.shakespeare.cache.size characters of lines
+    // (0 to not cache them), for spark.shakespeare.cache.ttl seconds (0 for the whole session).
+    static final String CACHE_SIZE_KEY = "spark.shakespeare.cache.size";
+    static final String CACHE_TTL_KEY = "spark.shakespeare.cache.ttl";
+
     static SparkConf conf = new SparkConf().setMaster("local").setAppName("ShakespeareAnalytics");
     static JavaSparkContext sparkContext = new JavaSparkContext(conf);;
     static JavaRDD<String> inputFile;
@@ -26,6 +62,89 @@ public class ShakespeareAnalytics {
         inputFile = sparkContext.textFile(fileName);
     }
 
+    /**
+     * Reads the input file once and persists it at the configured storage level,
+     * so that all metrics and the word search reuse the same partitions.
+     * @param fileName the name of the input file to be processed
+     */
+    public static void initCached(String fileName) {
+        inputFile = sparkContext.textFile(fileName).persist(storageLevel(conf.get(STORAGE_LEVEL_KEY, "MEMORY_ONLY")));
+    }
+
+    /**
+     * Maps a storage level name such as MEMORY_AND_DISK_SER to the Spark storage level.
+     * @param name the name of the storage level
+     * @return the matching storage level
+     */
+    static StorageLevel storageLevel(String name) {
+        switch (name.trim().toUpperCase()) {
+            case "NONE": return StorageLevels.NONE;
+            case "DISK_ONLY": return StorageLevels.DISK_ONLY;
+            case "DISK_ONLY_2": return StorageLevels.DISK_ONLY_2;
+            case "MEMORY_ONLY": return StorageLevels.MEMORY_ONLY;
+            case "MEMORY_ONLY_2": return StorageLevels.MEMORY_ONLY_2;
+            case "MEMORY_ONLY_SER": return StorageLevels.MEMORY_ONLY_SER;
+            case "MEMORY_ONLY_SER_2": return StorageLevels.MEMORY_ONLY_SER_2;
+            case "MEMORY_AND_DISK": return StorageLevels.MEMORY_AND_DISK;
+            case "MEMORY_AND_DISK_2": return StorageLevels.MEMORY_AND_DISK_2;
+            case "MEMORY_AND_DISK_SER": return StorageLevels.MEMORY_AND_DISK_SER;
+            case "MEMORY_AND_DISK_SER_2": return StorageLevels.MEMORY_AND_DISK_SER_2;
+            default: throw new IllegalArgumentException("Unknown storage level: " + name);
+        }
+    }
+
+    /**
+     * Returns the relative error accepted for distinct counts, or 0 when they must be exact.
+     * @return the relative error from the configuration
+     */
+    static double distinctRelativeError() {
+        if (!APPROX_DISTINCT.equals(conf.get(DISTINCT_KEY, ""))) {
+            return 0;
+        }
+        return Double.parseDouble(conf.get(RELATIVE_ERROR_KEY, "0.01"));
+    }
+
+    /**
+     * Estimates the number of distinct values of an RDD without a shuffle.
+     * A HyperLogLog sketch is built for each partition and the sketches are merged on the driver.
+     * @param values the values to be counted
+     * @param relativeError the accepted relative error
+     * @return the estimated number of distinct values
+     */
+    static long approxDistinct(JavaRDD<String> values, double relativeError) {
+        return values.mapPartitions((Iterator<String> partition) -> {
+            HyperLogLog sketch = new HyperLogLog(relativeError);
+            while (partition.hasNext()) {
+                sketch.offer(partition.next());
+            }
+            return Collections.singletonList(sketch);
+        }).reduce(HyperLogLog::merge).cardinality();
+    }
+
+    /**
+     * Computes every metric in one pass over the cached input file.
+     * Each partition builds its own CorpusStats and the partial results are merged on the driver.
+     * @param fileName the name of the input file to be processed
+     */
+    private static void analyze(String fileName) {
+        initCached(fileName);
+        double relativeError = distinctRelativeError();
+        WordTokenizer tokenizer = tokenizer();
+        CorpusStats stats = inputFile.mapPartitions((Iterator<String> lines) -> {
+            CorpusStats partial = new CorpusStats(relativeError);
+            while (lines.hasNext()) {
+                partial.addLine(lines.next(), tokenizer);
+            }
+            return Collections.singletonList(partial);
+        }).reduce(CorpusStats::merge);
+        System.out.println("Number of lines in the file \"" + fileName + "\": " + stats.getNumLines());
+        System.out.println("Number of words in the file \"" + fileName + "\": " + stats.getNumWords());
+        System.out.println("Number of distinct words in the file \"" + fileName + "\": " + stats.getNumDistinctWords());
+        System.out.println("Number of symbols in the file \"" + fileName + "\": " + stats.getNumSymbols());
+        System.out.println("Number of distinct symbols in the file \"" + fileName + "\": " + stats.getNumDistinctSymbols());
+        System.out.println("Number of distinct letters in the file \"" + fileName + "\": " + stats.getNumDistinctLetters());
+    }
+
     /**
      * Counts the number of lines in the input file.
      * @param fileName the name of the input file to be processed
@@ -36,14 +155,32 @@ public class ShakespeareAnalytics {
         System.out.println("Number of lines in the file \"" + fileName + "\": " + numLines);
     }
 
+    /**
+     * Creates the tokenizer configured by the spark.hadoop.wordtokenizer.* settings.
+     * It is shipped with each task, which then reuses it for every line of its partition.
+     * @return the configured tokenizer
+     */
+    static WordTokenizer tokenizer() {
+        return WordTokenizer.fromConf(sparkContext.hadoopConfiguration());
+    }
+
     /**
      * Counts the number of words in the input file.
      * @param fileName the name of the input file to be processed
      */
     private static void countNumWords(String fileName) {
         init(fileName);
-        JavaRDD<String> wordsFromFile = inputFile.flatMap(content -> Arrays.asList(content.split(" ")));//tokenize the text
-        long numWords = wordsFromFile.count();
+        WordTokenizer tokenizer = tokenizer();
+        long numWords = inputFile.mapPartitions((Iterator<String> lines) -> {
+            long count = 0;
+            while (lines.hasNext()) {
+                tokenizer.reset(lines.next());
+                while (tokenizer.next()) {
+                    count++;
+                }
+            }
+            return Collections.singletonList(count);
+        }).fold(0L, Long::sum);
         System.out.println("Number of words in the file \"" + fileName + "\": " + numWords);
     }
 
@@ -53,8 +190,17 @@ public class ShakespeareAnalytics {
      */
     private static void countNumDistinctWords(String fileName) {
         init(fileName);
-        JavaRDD<String> wordsFromFile = inputFile.flatMap(content -> Arrays.asList(content.split(" ")));//tokenize the text
-        long numWords = wordsFromFile.distinct().count();
+        WordTokenizer tokenizer = tokenizer();
+        JavaRDD<String> wordsFromFile = inputFile.flatMap(line -> {
+            List<String> words = new ArrayList<>();
+            tokenizer.reset(line);
+            while (tokenizer.next()) {
+                words.add(tokenizer.token());
+            }
+            return words;
+        });
+        double relativeError = distinctRelativeError();
+        long numWords = relativeError > 0 ? approxDistinct(wordsFromFile, relativeError) : wordsFromFile.distinct().count();
         System.out.println("Number of distinct words in the file \"" + fileName + "\": " + numWords);
     }
 
@@ -65,19 +211,38 @@ public class ShakespeareAnalytics {
      */
     private static void countNumSymbols(String fileName) {
         init(fileName);
-        JavaRDD<String> symbolsFromFile = inputFile.flatMap(line -> Arrays.asList(line.split(""))).filter(symbol -> !symbol.isEmpty());
-        long numSymbols = symbolsFromFile.count();
+        long numSymbols = inputFile.map(line -> (long) line.length()).fold(0L, Long::sum);
         System.out.println("Number of symbols in the file \"" + fileName + "\": " + numSymbols);
     }
 
+    /**
+     * Collects the distinct symbols of the input file.
+     * Each partition marks its symbols in a bit set and the bit sets are merged on the driver.
+     * @return a bit set with a bit for every symbol that occurs in the file
+     */
+    private static BitSet distinctSymbols() {
+        return inputFile.mapPartitions((Iterator<String> lines) -> {
+            BitSet symbols = new BitSet(Character.MAX_VALUE + 1);
+            while (lines.hasNext()) {
+                String line = lines.next();
+                for (int i = 0; i < line.length(); i++) {
+                    symbols.set(line.charAt(i));
+                }
+            }
+            return Collections.singletonList(symbols);
+        }).fold(new BitSet(), (a, b) -> {
+            a.or(b);
+            return a;
+        });
+    }
+
     /**
      * Counts the number of distinct symbols in the input file.
      * @param fileName the name of the input file to be processed
      */
     private static void countDistinctNumSymbols(String fileName) {
         init(fileName);
-        JavaRDD<String> symbolsFromFile = inputFile.flatMap(line -> Arrays.asList(line.split(""))).filter(symbol -> !symbol.isEmpty()).distinct();
-        long numDistinctSymbols = symbolsFromFile.count();
+        long numDistinctSymbols = distinctSymbols().cardinality();
         System.out.println("Number of distinct symbols in the file \"" + fileName + "\": " + numDistinctSymbols);
     }
 
@@ -87,22 +252,81 @@ public class ShakespeareAnalytics {
      */
     private static void countNumLetters(String fileName) {
         init(fileName);
-        JavaRDD<String> lettersFromFile = inputFile.flatMap(line -> Arrays.asList(line.split(""))).filter(c -> c.matches("[a-zA-Z]")) // filter out non-letter characters
-                .distinct(); // get only the unique letters
-        long numLetters = lettersFromFile.count();
+        long numLetters = CorpusStats.countLetters(distinctSymbols());
         System.out.println("Number of distinct letters in the file \"" + fileName + "\": " + numLetters);
     }
 
+    /**
+     * Writes the PositionalIndex of the input file next to it.
+     * Each partition builds the postings of its lines, and the postings of each word are merged
+     * and sorted by word before the driver writes them.
+     * @param fileName the name of the input file to be indexed
+     */
+    private static void buildIndex(String fileName) throws IOException {
+        List<Tuple2<String, PositionalIndex.Postings>> words = sparkContext
+                .hadoopFile(fileName, TextInputFormat.class, LongWritable.class, Text.class)
+                .mapPartitionsToPair(PositionalIndex::postings)
+                .reduceByKey(PositionalIndex.Postings::merge)
+                .sortByKey()
+                .collect();
+        PositionalIndex.write(fileName, words, sparkContext.hadoopConfiguration());
+        System.out.println("Indexed " + words.size() + " words of the file \"" + fileName + "\" in " + PositionalIndex.indexPath(fileName));
+    }
+
     /**
      * Searches for a specific word in the input file and prints the lines that contain it.
      * @param fileName the name of the input file to be searched
      * @param word the word to be searched for
      */
-    private static void searchWord(String fileName, String word) {
+    private static void searchWord(String fileName, String word) throws IOException {
         init(fileName);
-        JavaRDD<String> linesWithWord = inputFile.filter(line -> line.contains(word));
+        printLinesWithWord(fileName, word);
+    }
+
+    /**
+     * Prints the lines of the input file that contain a specific word or phrase, as whole words
+     * and regardless of case. The lines are read with the PositionalIndex of the file if it has one,
+     * otherwise the already loaded input file is scanned.
+     * @param fileName the name of the input file being searched
+     * @param word the word to be searched for
+     */
+    private static void printLinesWithWord(String fileName, String word) throws IOException {
         System.out.println("Lines in the file \"" + fileName + "\" that contain the word \"" + word + "\":");
-        linesWithWord.foreach(line -> System.out.println(line));
+        PositionalIndex index = PositionalIndex.open(fileName, sparkContext.hadoopConfiguration());
+        if (index != null) {
+            try {
+                index.printLines(word, System.out);
+            } finally {
+                index.close();
+            }
+            return;
+        }
+        WordTokenizer tokenizer = PositionalIndex.tokenizer();
+        List<String> query = PositionalIndex.words(word, tokenizer);
+        List<String> linesWithWord = inputFile.filter(line -> PositionalIndex.matches(line, query, tokenizer)).collect();
+        for (String line : linesWithWord) {
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Answers queries against the cached, tokenized input file until the queries end.
+     * @param fileName the name of the input file to be queried
+     */
+    private static void session(String fileName) throws IOException {
+        QuerySession session = new QuerySession(sparkContext.textFile(fileName), fileName,
+                storageLevel(conf.get(STORAGE_LEVEL_KEY, "MEMORY_ONLY")), tokenizer(), distinctRelativeError(),
+                Long.parseLong(conf.get(CACHE_SIZE_KEY, "16000000")), (long) (Double.parseDouble(conf.get(CACHE_TTL_KEY, "0")) * 1000));
+        long start = System.nanoTime();
+        long numLines = session.load();
+        System.err.println("Loaded " + numLines + " lines of \"" + fileName + "\" in " + (System.nanoTime() - start) / 1000000 + " ms");
+        String queriesFile = conf.get(QUERIES_KEY, "");
+        InputStream queries = queriesFile.isEmpty() ? System.in : new FileInputStream(queriesFile);
+        try {
+            session.run(new BufferedReader(new InputStreamReader(queries, StandardCharsets.UTF_8)), System.out);
+        } finally {
+            queries.close();
+        }
     }
 
     /**
@@ -116,12 +340,25 @@ public class ShakespeareAnalytics {
         return searchWord;
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
 
         if (args.length == 0) {
             System.out.println("No files provided.");
             System.exit(0);
         }
+        if (INDEX_MODE.equals(conf.get(MODE_KEY, ""))) {
+            buildIndex(args[0]);
+            return;
+        }
+        if (SESSION_MODE.equals(conf.get(MODE_KEY, ""))) {
+            session(args[0]);
+            return;
+        }
+        if (ENGINE_MODE.equals(conf.get(MODE_KEY, ""))) {
+            analyze(args[0]);
+            printLinesWithWord(args[0], input());
+            return;
+        }
         countNumLines(args[0]);
         countNumWords(args[0]);
         countNumDistinctWords(args[0]);
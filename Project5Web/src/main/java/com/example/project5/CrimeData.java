@@ -0,0 +1,103 @@
+package com.example.project5;
+
+import edu.cmu.andrew.student032.CrimeGrid;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.ws.rs.ServiceUnavailableException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads the CrimeStore when the application starts, so no request waits for it.
+ * The crime file is the tab separated file of the crime jobs, given by the crime.data system
+ * property or the CRIME_DATA environment variable. The grid cell size is crime.grid.cell.size
+ * feet, 500 by default, like for CrimeGridIndexer.
+ * The crimes are read again when the length or modification time of the file changes, which is
+ * checked at most once every crime.data.check.interval seconds, 10 by default, 0 to never check.
+ */
+@ApplicationScoped
+public class CrimeData {
+    public static final String DATA_PROPERTY = "crime.data";
+    public static final String DATA_VARIABLE = "CRIME_DATA";
+    public static final String CHECK_INTERVAL_PROPERTY = "crime.data.check.interval";
+    private static final Logger LOG = Logger.getLogger(CrimeData.class.getName());
+
+    private Path path;
+    private CrimeGrid grid;
+    private long checkIntervalNanos;
+    private volatile long nextCheck;
+    private volatile CrimeStore store;
+
+    @PostConstruct
+    void load() {
+        String file = System.getProperty(DATA_PROPERTY, System.getenv(DATA_VARIABLE));
+        if (file == null) {
+            LOG.warning("No crime file, set " + DATA_PROPERTY + " or " + DATA_VARIABLE);
+            return;
+        }
+        grid = new CrimeGrid(Double.parseDouble(
+                System.getProperty(CrimeGrid.CELL_SIZE_KEY, Double.toString(CrimeGrid.DEFAULT_CELL_SIZE))));
+        checkIntervalNanos = (long) (Double.parseDouble(System.getProperty(CHECK_INTERVAL_PROPERTY, "10")) * 1e9);
+        path = Paths.get(file);
+        read();
+    }
+
+    private void read() {
+        nextCheck = System.nanoTime() + checkIntervalNanos;
+        try {
+            long start = System.nanoTime();
+            store = CrimeStore.load(path, grid);
+            LOG.info("Loaded " + store.size() + " crimes from " + path + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Could not load the crimes from " + path, e);
+        }
+    }
+
+    /**
+     * Creates the bean, and so loads the crimes, when the application starts.
+     */
+    void onStartup(@Observes @Initialized(ApplicationScoped.class) Object event) {
+    }
+
+    /**
+     * Reads the crimes again if the file changed since they were read.
+     */
+    private synchronized void check() {
+        if (System.nanoTime() - nextCheck < 0) {
+            // another request checked it meanwhile
+            return;
+        }
+        try {
+            if (store != null && store.getVersion().equals(CrimeStore.version(path))) {
+                nextCheck = System.nanoTime() + checkIntervalNanos;
+                return;
+            }
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not check " + path + ", keeping the crimes read before", e);
+            nextCheck = System.nanoTime() + checkIntervalNanos;
+            return;
+        }
+        read();
+    }
+
+    /**
+     * @return the crimes
+     * @throws ServiceUnavailableException if they could not be loaded
+     */
+    public CrimeStore getStore() {
+        if (path != null && checkIntervalNanos > 0 && System.nanoTime() - nextCheck >= 0) {
+            check();
+        }
+        CrimeStore store = this.store;
+        if (store == null) {
+            throw new ServiceUnavailableException("The crime data is not loaded");
+        }
+        return store;
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.project5;
+
+import edu.cmu.andrew.student032.CrimeDimension;
+import edu.cmu.andrew.student032.CrimeRadiusQuery;
+import edu.cmu.andrew.student032.CrimeRecord;
+import edu.cmu.andrew.student032.KmlDocument;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.MediaType;
+import org.myorg.ResultCache;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Answers the questions of the crime jobs from the CrimeStore, as JSON.
+ * - /api/crimes/near?x=&amp;y=&amp;radius=&amp;offense=&amp;limit= counts the crimes within radius meters of
+ *   the state plane point x, y (feet) whose offense contains offense, * for all, and lists up to limit
+ *   of them. The defaults are those of AggravatedAssaults: aggravated assaults within 350 meters of
+ *   3803 Forbes Avenue.
+ * - /api/crimes/near.kml?x=&amp;y=&amp;radius=&amp;offense=&amp;name=&amp;sharedStyle= streams the KML of all the
+ *   crimes of the same query, like AggravatedAssaultsKML, as the crimes are found. name is the name
+ *   of the placemarks, the offense by default, and sharedStyle writes it once, see KmlOutputFormat.
+ * - /api/crimes/counts?groupBy=&amp;offenses= counts the crimes of every combination of values of the
+ *   comma separated dimensions (offense, zone, tract, year, month, hour), * for the total, like
+ *   CrimeAggregation. offenses restricts the counts to a comma separated list of offenses, e.g.
+ *   groupBy=*&amp;offenses=rape,robbery answers RapesPlusRobberies.
+ * - /api/crimes/cache returns the counters of the cache of the answers.
+ * Answers are kept in a ResultCache of at most crime.cache.size characters of JSON, 32 million by
+ * default, for crime.cache.ttl seconds, 0 (the default) until they are evicted or the crime file changes.
+ * Requests that differ only in case or order of the offenses share an answer. With crime.cache.precision
+ * set, in feet, x and y are rounded to multiples of it before the query runs, so nearby points share one
+ * too; the answer gives the rounded point. The radius, in meters, is never rounded.
+ */
+@Path("/crimes")
+@Produces(MediaType.APPLICATION_JSON)
+@ApplicationScoped
+public class CrimeResource {
+    static final double MAX_RADIUS = 10000;
+    static final int MAX_LIMIT = 10000;
+    static final String CACHE_SIZE_PROPERTY = "crime.cache.size";
+    static final String CACHE_TTL_PROPERTY = "crime.cache.ttl";
+    static final String CACHE_PRECISION_PROPERTY = "crime.cache.precision";
+    // the size of the chunks of streamed responses
+    static final int CHUNK_SIZE = 8192;
+
+    @Inject
+    CrimeData data;
+
+    @Inject
+    StreamingExecutor streaming;
+
+    private ResultCache<String, String> cache;
+    // in feet, like the state plane coordinates it rounds
+    private double precision;
+
+    @PostConstruct
+    void createCache() {
+        cache = new ResultCache<>(Long.parseLong(System.getProperty(CACHE_SIZE_PROPERTY, "32000000")),
+                (long) (Double.parseDouble(System.getProperty(CACHE_TTL_PROPERTY, "0")) * 1000), String::length);
+        precision = Double.parseDouble(System.getProperty(CACHE_PRECISION_PROPERTY, "0"));
+    }
+
+    @GET
+    @Path("near")
+    public String near(@QueryParam("x") Double x, @QueryParam("y") Double y, @QueryParam("radius") Double radius,
+                       @QueryParam("offense") String offense, @QueryParam("limit") @DefaultValue("100") int limit) {
+        CrimeRadiusQuery query = query(round(x), round(y), radius, offense);
+        if (limit < 0 || limit > MAX_LIMIT) {
+            throw new BadRequestException("limit must be between 0 and " + MAX_LIMIT);
+        }
+        CrimeStore store = data.getStore();
+        String key = "near\t" + query.getX() + "\t" + query.getY() + "\t" + query.getRadius() + "\t"
+                + query.getOffense() + "\t" + query.describe() + "\t" + limit;
+        return cache.get(key, store.getVersion(), () -> near(store, query, limit));
+    }
+
+    private static String near(CrimeStore store, CrimeRadiusQuery query, int limit) {
+        CrimeStore.Matches matches = store.near(query, limit);
+        StringBuilder json = new StringBuilder(128 + 160 * matches.getRows().length);
+        json.append("{\"count\":").append(matches.getCount());
+        json.append(",\"x\":").append(query.getX());
+        json.append(",\"y\":").append(query.getY());
+        json.append(",\"radius\":").append(query.getRadius());
+        json.append(",\"offense\":");
+        string(json, query.getOffense().isEmpty() ? "*" : query.getOffense());
+        json.append(",\"description\":");
+        string(json, query.describe());
+        json.append(",\"crimes\":[");
+        CrimeRecord record = new CrimeRecord();
+        int[] rows = matches.getRows();
+        for (int i = 0; i < rows.length; i++) {
+            store.record(rows[i], record);
+            json.append(i > 0 ? "," : "");
+            crime(json, record);
+        }
+        return json.append("]}").toString();
+    }
+
+    @GET
+    @Path("near.kml")
+    @Produces(KmlDocument.MEDIA_TYPE)
+    public void nearKml(@QueryParam("x") Double x, @QueryParam("y") Double y, @QueryParam("radius") Double radius,
+                        @QueryParam("offense") String offense, @QueryParam("name") String name,
+                        @QueryParam("sharedStyle") @DefaultValue("false") boolean sharedStyle,
+                        @Suspended AsyncResponse response) {
+        CrimeRadiusQuery query = query(x, y, radius, offense);
+        CrimeStore store = data.getStore();
+        KmlDocument document = new KmlDocument(name == null ? title(query.getOffense()) : name, query.describe(), sharedStyle);
+        streaming.stream(response, out -> {
+            OutputStream kml = new BufferedOutputStream(out, CHUNK_SIZE);
+            kml.write(document.header());
+            store.near(query, row -> kml.write(document.placemark(store.getLon(row), store.getLat(row))));
+            kml.write(document.footer());
+            kml.flush();
+        }, KmlDocument.MEDIA_TYPE);
+    }
+
+    /**
+     * @return an offense with capitalized words, e.g. Aggravated Assault, or Crime for all offenses
+     */
+    private static String title(String offense) {
+        if (offense.isEmpty()) {
+            return "Crime";
+        }
+        StringBuilder title = new StringBuilder(offense.length());
+        for (int i = 0; i < offense.length(); i++) {
+            char c = offense.charAt(i);
+            title.append(i == 0 || offense.charAt(i - 1) == ' ' ? Character.toUpperCase(c) : c);
+        }
+        return title.toString();
+    }
+
+    @GET
+    @Path("counts")
+    public String counts(@QueryParam("groupBy") @DefaultValue("offense") String groupBy,
+                         @QueryParam("offenses") String offenses) {
+        CrimeDimension[] dimensions;
+        try {
+            dimensions = CrimeDimension.parse(groupBy);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("groupBy must be dimensions among offense, zone, tract, year, month, hour: " + groupBy);
+        }
+        Set<String> offenseFilter = null;
+        if (offenses != null && !offenses.trim().isEmpty()) {
+            offenseFilter = new TreeSet<>();
+            for (String name : offenses.split(",")) {
+                offenseFilter.add(name.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        StringBuilder key = new StringBuilder("counts");
+        for (CrimeDimension dimension : dimensions) {
+            key.append('\t').append(dimension.name());
+        }
+        key.append('\n').append(offenseFilter == null ? "" : String.join("\t", offenseFilter));
+        CrimeStore store = data.getStore();
+        Set<String> filter = offenseFilter;
+        return cache.get(key.toString(), store.getVersion(), () -> counts(store, dimensions, filter));
+    }
+
+    private static String counts(CrimeStore store, CrimeDimension[] dimensions, Set<String> offenseFilter) {
+        List<CrimeStore.Group> groups = store.counts(dimensions, offenseFilter);
+        long total = 0;
+        for (CrimeStore.Group group : groups) {
+            total += group.getCount();
+        }
+        StringBuilder json = new StringBuilder(64 + 48 * groups.size());
+        json.append("{\"groupBy\":[");
+        for (int i = 0; i < dimensions.length; i++) {
+            json.append(i > 0 ? "," : "");
+            string(json, dimensions[i].name().toLowerCase(Locale.ROOT));
+        }
+        json.append("],\"total\":").append(total).append(",\"groups\":[");
+        for (int g = 0; g < groups.size(); g++) {
+            CrimeStore.Group group = groups.get(g);
+            json.append(g > 0 ? ",{" : "{");
+            for (int i = 0; i < dimensions.length; i++) {
+                string(json, dimensions[i].name().toLowerCase(Locale.ROOT));
+                json.append(':');
+                string(json, group.getValues()[i]);
+                json.append(',');
+            }
+            json.append("\"count\":").append(group.getCount()).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    @GET
+    @Path("cache")
+    public String cache() {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"size\":").append(cache.size());
+        json.append(",\"weight\":").append(cache.getWeight());
+        json.append(",\"maxWeight\":").append(cache.getMaxWeight());
+        json.append(",\"hits\":").append(cache.getHits());
+        json.append(",\"misses\":").append(cache.getMisses());
+        json.append(",\"hitRate\":").append(cache.hitRate());
+        json.append(",\"evictions\":").append(cache.getEvictions());
+        json.append(",\"expirations\":").append(cache.getExpirations());
+        json.append(",\"invalidations\":").append(cache.getInvalidations());
+        return json.append('}').toString();
+    }
+
+    /**
+     * Rounds a state plane coordinate to the cache precision.
+     */
+    private Double round(Double value) {
+        if (value == null || value.isNaN() || value.isInfinite()) {
+            return value;
+        }
+        return ResultCache.round(value, precision);
+    }
+
+    /**
+     * Builds the radius query of a request, with the defaults of AggravatedAssaults for missing parameters.
+     */
+    static CrimeRadiusQuery query(Double x, Double y, Double radius, String offense) {
+        if (radius != null && !(radius > 0 && radius <= MAX_RADIUS)) {
+            throw new BadRequestException("radius must be between 0 and " + MAX_RADIUS + " meters");
+        }
+        if ((x == null) != (y == null) || (x != null && (x.isNaN() || x.isInfinite() || y.isNaN() || y.isInfinite()))) {
+            throw new BadRequestException("x and y must both be given as numbers, or both be left out");
+        }
+        String place = x == null ? CrimeRadiusQuery.DEFAULT_PLACE : "(" + x + ", " + y + ")";
+        return new CrimeRadiusQuery(x == null ? CrimeRadiusQuery.DEFAULT_X : x, y == null ? CrimeRadiusQuery.DEFAULT_Y : y,
+                radius == null ? CrimeRadiusQuery.DEFAULT_RADIUS : radius,
+                offense == null ? CrimeRadiusQuery.DEFAULT_OFFENSE : offense, place);
+    }
+
+    private static void crime(StringBuilder json, CrimeRecord record) {
+        json.append("{\"x\":").append(record.getX());
+        json.append(",\"y\":").append(record.getY());
+        json.append(",\"lat\":").append(record.getLat());
+        json.append(",\"lon\":").append(record.getLon());
+        json.append(",\"offense\":");
+        string(json, record.getOffense().trim());
+        json.append(",\"tract\":");
+        string(json, record.getTract());
+        json.append(",\"date\":");
+        int date = record.getDate();
+        if (date == 0) {
+            json.append("null");
+        } else {
+            json.append(String.format("\"%04d-%02d-%02d\"", date / 10000, date / 100 % 100, date % 100));
+        }
+        json.append(",\"hour\":").append(record.getHour() < 0 ? "null" : Integer.toString(record.getHour()));
+        json.append('}');
+    }
+
+    /**
+     * Appends a JSON string.
+     */
+    static void string(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
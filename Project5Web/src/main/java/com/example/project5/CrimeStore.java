@@ -0,0 +1,342 @@
+package com.example.project5;
+
+import edu.cmu.andrew.student032.CrimeDimension;
+import edu.cmu.andrew.student032.CrimeGrid;
+import edu.cmu.andrew.student032.CrimeRadiusQuery;
+import edu.cmu.andrew.student032.CrimeRecord;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable in-memory copy of the tab separated crime file, kept in columns and sorted by the
+ * cell of a CrimeGrid, so a radius query only looks at the rows of the cells that overlap its circle.
+ * It answers the questions of the crime jobs with the same rules: near() those of AggravatedAssaults
+ * (CrimeRadiusQuery) and counts() those of RapesPlusRobberies and CrimeAggregation (CrimeDimension).
+ * Queries only read the columns, so any number of threads can run them at the same time.
+ */
+public class CrimeStore {
+    private final CrimeGrid grid;
+    private final String version;
+    private final int size;
+    private final double[] x;
+    private final double[] y;
+    private final double[] lat;
+    private final double[] lon;
+    private final String[] offenses;
+    private final int[] offenseIds;
+    private final String[] tracts;
+    private final int[] tractIds;
+    private final int[] dates;
+    private final byte[] hours;
+    // the sorted cells that have crimes, and the first row of every cell; cellStarts[cells.length] is size
+    private final long[] cells;
+    private final int[] cellStarts;
+
+    private CrimeStore(CrimeGrid grid, String version, List<CrimeRecord> records) {
+        this.grid = grid;
+        this.version = version;
+        this.size = records.size();
+        long[] recordCells = new long[size];
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            CrimeRecord record = records.get(i);
+            recordCells[i] = grid.cell(record.getX(), record.getY());
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> recordCells[i]));
+
+        x = new double[size];
+        y = new double[size];
+        lat = new double[size];
+        lon = new double[size];
+        offenseIds = new int[size];
+        tractIds = new int[size];
+        dates = new int[size];
+        hours = new byte[size];
+        Map<String, Integer> offenseDictionary = new HashMap<>();
+        Map<String, Integer> tractDictionary = new HashMap<>();
+        long[] rowCells = new long[size];
+        int numCells = 0;
+        for (int row = 0; row < size; row++) {
+            CrimeRecord record = records.get(order[row]);
+            x[row] = record.getX();
+            y[row] = record.getY();
+            lat[row] = record.getLat();
+            lon[row] = record.getLon();
+            offenseIds[row] = offenseDictionary.computeIfAbsent(record.getOffense(), key -> offenseDictionary.size());
+            tractIds[row] = tractDictionary.computeIfAbsent(record.getTract(), key -> tractDictionary.size());
+            dates[row] = record.getDate();
+            hours[row] = (byte) record.getHour();
+            long cell = recordCells[order[row]];
+            if (numCells == 0 || rowCells[numCells - 1] != cell) {
+                rowCells[numCells++] = cell;
+            }
+        }
+        offenses = dictionary(offenseDictionary);
+        tracts = dictionary(tractDictionary);
+
+        cells = Arrays.copyOf(rowCells, numCells);
+        cellStarts = new int[numCells + 1];
+        int cell = -1;
+        for (int row = 0; row < size; row++) {
+            if (cell < 0 || cells[cell] != recordCells[order[row]]) {
+                cellStarts[++cell] = row;
+            }
+        }
+        cellStarts[numCells] = size;
+    }
+
+    private static String[] dictionary(Map<String, Integer> ids) {
+        String[] values = new String[ids.size()];
+        for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+            values[entry.getValue()] = entry.getKey();
+        }
+        return values;
+    }
+
+    /**
+     * Reads the tab separated crime file.
+     * @param file the crime file
+     * @param grid the grid the rows are sorted and looked up by
+     */
+    public static CrimeStore load(Path file, CrimeGrid grid) throws IOException {
+        String version = version(file);
+        List<CrimeRecord> records = new ArrayList<>();
+        try (BufferedReader lines = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                CrimeRecord record = new CrimeRecord();
+                if (record.parse(line)) {
+                    records.add(record);
+                }
+            }
+        }
+        return new CrimeStore(grid, version, records);
+    }
+
+    /**
+     * @return the length and modification time of a crime file, which change when it is rewritten
+     */
+    public static String version(Path file) throws IOException {
+        return Files.size(file) + "@" + Files.getLastModifiedTime(file).toMillis();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the version of the file the crimes were read from
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Finds the crimes that match a radius query.
+     * @param query the center, radius and offense
+     * @param limit the largest number of rows to return
+     * @return the number of matching crimes and up to limit of their rows
+     */
+    public Matches near(CrimeRadiusQuery query, int limit) {
+        RowCollector rows = new RowCollector(limit);
+        int count = near(query, rows);
+        return new Matches(count, Arrays.copyOf(rows.rows, rows.size));
+    }
+
+    /**
+     * Passes the crimes that match a radius query to a visitor as they are found, so they can be
+     * written out without collecting them.
+     * @param query the center, radius and offense
+     * @param visitor receives the rows of the matching crimes, in the order of the grid
+     * @return the number of matching crimes
+     */
+    public <E extends Exception> int near(CrimeRadiusQuery query, RowVisitor<E> visitor) throws E {
+        boolean[] offenseMatches = new boolean[offenses.length];
+        for (int id = 0; id < offenses.length; id++) {
+            offenseMatches[id] = query.matchesOffense(offenses[id]);
+        }
+        CrimeRecord record = new CrimeRecord();
+        int count = 0;
+        for (long cell : query.cells(grid, cells)) {
+            int index = Arrays.binarySearch(cells, cell);
+            if (index < 0) {
+                continue;
+            }
+            for (int row = cellStarts[index]; row < cellStarts[index + 1]; row++) {
+                if (!offenseMatches[offenseIds[row]]) {
+                    continue;
+                }
+                record.setX(x[row]);
+                record.setY(y[row]);
+                if (record.distanceInMeters(query.getX(), query.getY()) < query.getRadius()) {
+                    count++;
+                    visitor.visit(row);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the crimes of every combination of values of some dimensions.
+     * @param dimensions the dimensions to group by, none for the total
+     * @param offenseFilter the lower case offenses to count, or null for all
+     * @return the groups, sorted by their values, numeric dimensions numerically
+     */
+    public List<Group> counts(CrimeDimension[] dimensions, Set<String> offenseFilter) {
+        boolean[] offenseMatches = new boolean[offenses.length];
+        for (int id = 0; id < offenses.length; id++) {
+            offenseMatches[id] = offenseFilter == null || offenseFilter.contains(offenses[id].trim().toLowerCase(Locale.ROOT));
+        }
+        Map<List<Object>, long[]> groups = new HashMap<>();
+        CrimeRecord record = new CrimeRecord();
+        for (int row = 0; row < size; row++) {
+            if (!offenseMatches[offenseIds[row]]) {
+                continue;
+            }
+            record(row, record);
+            List<Object> key = new ArrayList<>(dimensions.length);
+            for (CrimeDimension dimension : dimensions) {
+                key.add(dimension.isNumeric() ? (Object) dimension.number(record, grid) : dimension.string(record));
+            }
+            groups.computeIfAbsent(key, k -> new long[1])[0]++;
+        }
+        List<Group> result = new ArrayList<>(groups.size());
+        for (Map.Entry<List<Object>, long[]> entry : groups.entrySet()) {
+            String[] values = new String[dimensions.length];
+            for (int i = 0; i < dimensions.length; i++) {
+                Object value = entry.getKey().get(i);
+                values[i] = value instanceof Long ? dimensions[i].format((Long) value) : (String) value;
+            }
+            result.add(new Group(entry.getKey(), values, entry.getValue()[0]));
+        }
+        result.sort(Group::compareTo);
+        return result;
+    }
+
+    /**
+     * Fills a record with the columns of a row.
+     */
+    public void record(int row, CrimeRecord record) {
+        record.setX(x[row]);
+        record.setY(y[row]);
+        record.setLat(lat[row]);
+        record.setLon(lon[row]);
+        record.setOffense(offenses[offenseIds[row]]);
+        record.setTract(tracts[tractIds[row]]);
+        record.setDate(dates[row]);
+        record.setHour(hours[row]);
+    }
+
+    public double getLat(int row) {
+        return lat[row];
+    }
+
+    public double getLon(int row) {
+        return lon[row];
+    }
+
+    /**
+     * Receives the rows of the crimes that match a query.
+     * @param <E> the exception the visitor can throw, e.g. IOException when it writes the crimes out
+     */
+    public interface RowVisitor<E extends Exception> {
+        void visit(int row) throws E;
+    }
+
+    /**
+     * Keeps the first rows of a query.
+     */
+    private static class RowCollector implements RowVisitor<RuntimeException> {
+        private final int limit;
+        private int[] rows;
+        private int size;
+
+        RowCollector(int limit) {
+            this.limit = limit;
+            this.rows = new int[Math.min(limit, 64)];
+        }
+
+        @Override
+        public void visit(int row) {
+            if (size < limit) {
+                if (size == rows.length) {
+                    rows = Arrays.copyOf(rows, Math.min(limit, rows.length * 2));
+                }
+                rows[size++] = row;
+            }
+        }
+    }
+
+    /**
+     * The result of a radius query.
+     */
+    public static class Matches {
+        private final int count;
+        private final int[] rows;
+
+        Matches(int count, int[] rows) {
+            this.count = count;
+            this.rows = rows;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * @return the rows of the first matching crimes, in the order of the grid
+         */
+        public int[] getRows() {
+            return rows;
+        }
+    }
+
+    /**
+     * The number of crimes of one combination of dimension values.
+     */
+    public static class Group implements Comparable<Group> {
+        private final List<Object> key;
+        private final String[] values;
+        private final long count;
+
+        Group(List<Object> key, String[] values, long count) {
+            this.key = key;
+            this.values = values;
+            this.count = count;
+        }
+
+        public String[] getValues() {
+            return values;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public int compareTo(Group other) {
+            for (int i = 0; i < key.size(); i++) {
+                int result = ((Comparable<Object>) key.get(i)).compareTo(other.key.get(i));
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.project5;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.MediaType;
+import org.myorg.PhraseMatcher;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Answers the word search of ShakespeareAnalytics over HTTP.
+ * - /api/lines?q= streams every line of the text file that contains the word or phrase q, with the
+ *   rules of PhraseMatcher: whole words, regardless of case. Lines are written as they are found,
+ *   so no response holds all of them.
+ * The text file is given by the shakespeare.data system property or the SHAKESPEARE_DATA
+ * environment variable.
+ */
+@Path("/lines")
+@ApplicationScoped
+public class LineResource {
+    public static final String DATA_PROPERTY = "shakespeare.data";
+    public static final String DATA_VARIABLE = "SHAKESPEARE_DATA";
+
+    @Inject
+    StreamingExecutor streaming;
+
+    private java.nio.file.Path file;
+
+    @PostConstruct
+    void init() {
+        String name = System.getProperty(DATA_PROPERTY, System.getenv(DATA_VARIABLE));
+        file = name == null ? null : Paths.get(name);
+    }
+
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public void lines(@QueryParam("q") String query, @Suspended AsyncResponse response) {
+        if (file == null || !Files.isReadable(file)) {
+            throw new ServiceUnavailableException("No text file, set " + DATA_PROPERTY + " or " + DATA_VARIABLE);
+        }
+        if (query == null || new PhraseMatcher(query).getPhrase().isEmpty()) {
+            throw new BadRequestException("q must have at least one word");
+        }
+        java.nio.file.Path text = file;
+        streaming.stream(response, out -> {
+            PhraseMatcher matcher = new PhraseMatcher(query);
+            Writer lines = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CrimeResource.CHUNK_SIZE);
+            try (BufferedReader in = Files.newBufferedReader(text, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (matcher.matches(line)) {
+                        lines.write(line);
+                        lines.write('\n');
+                    }
+                }
+            }
+            lines.flush();
+        }, MediaType.TEXT_PLAIN + ";charset=UTF-8");
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.project5;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Writes the responses that stream large results, so a slow client blocks a thread of this executor
+ * instead of a request thread of the container. A response is written in small chunks, and a write
+ * blocks while the client is not reading, so the results are produced no faster than they are read.
+ * On a JDK with virtual threads (21 and later) every response gets its own virtual thread, which
+ * costs little while it waits. On older JDKs responses share streaming.threads platform threads,
+ * 64 by default, and when streaming.queue more responses, 1000 by default, are waiting for one,
+ * further requests are refused with 503.
+ */
+@ApplicationScoped
+public class StreamingExecutor {
+    public static final String THREADS_PROPERTY = "streaming.threads";
+    public static final String QUEUE_PROPERTY = "streaming.queue";
+    private static final Logger LOG = Logger.getLogger(StreamingExecutor.class.getName());
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        try {
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            LOG.info("Streaming responses on virtual threads");
+        } catch (ReflectiveOperationException e) {
+            int threads = Integer.getInteger(THREADS_PROPERTY, 64);
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Integer.getInteger(QUEUE_PROPERTY, 1000)));
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+            LOG.info("Streaming responses on " + threads + " threads");
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Resumes a suspended request with a streamed entity, which is written by a thread of the executor.
+     * @param response the suspended response
+     * @param output writes the entity
+     * @param mediaType the type of the entity
+     */
+    public void stream(AsyncResponse response, StreamingOutput output, String mediaType) {
+        try {
+            executor.execute(() -> response.resume(Response.ok(output, mediaType).build()));
+        } catch (RejectedExecutionException e) {
+            response.resume(new ServiceUnavailableException("Too many streaming responses, try again later"));
+        }
+    }
+}